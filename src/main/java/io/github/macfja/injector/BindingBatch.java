@@ -0,0 +1,245 @@
+package io.github.macfja.injector;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * BindingBatch class.
+ * A list of mapping changes applied atomically with {@link Injector#apply(BindingBatch)}:
+ * a resolution in progress sees either all the changes or none of them.
+ * <p>
+ * Changes are applied in the order they are added.
+ *
+ * @author MacFJA
+ */
+public class BindingBatch {
+    /**
+     * The changes, in order
+     */
+    private final List<Change> changes = new ArrayList<>();
+    /**
+     * The classes affected by the changes
+     */
+    private final Set<Class> changedClasses = new HashSet<>();
+
+    /**
+     * Add an injection rule of a class
+     *
+     * @param forClass          The class to inject
+     * @param instantiationType The Type of instantiation
+     * @return The batch
+     */
+    public BindingBatch addMapping(Class forClass, InjectionUnit.Instantiation instantiationType) {
+        return addMapping(forClass, new InjectionUnit(forClass, instantiationType));
+    }
+
+    /**
+     * Add an injection rule of a class
+     *
+     * @param forClass  The class to inject
+     * @param injection The injection rule
+     * @return The batch
+     */
+    public BindingBatch addMapping(final Class forClass, final InjectionUnit injection) {
+        changedClasses.add(forClass);
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                return bindings.withMapping(forClass, injection);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Add a singleton rule
+     *
+     * @param singleton The singleton to use
+     * @return The batch
+     */
+    public BindingBatch addMapping(Object singleton) {
+        return addMapping(singleton.getClass(), new InjectionUnit(singleton));
+    }
+
+    /**
+     * Remove the injection rule of a class
+     *
+     * @param forClass The class
+     * @return The batch
+     */
+    public BindingBatch removeMapping(final Class forClass) {
+        changedClasses.add(forClass);
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                return bindings.withoutMapping(forClass);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Add an injection rule of a qualified class (for the injection points with the qualifier annotation)
+     *
+     * @param forClass  The class to inject
+     * @param qualifier The qualifier ({@code @Named}, see {@link Names#named(String)}, or any annotation with
+     *                  {@code @javax.inject.Qualifier})
+     * @param injection The injection rule
+     * @return The batch
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     */
+    public BindingBatch addMapping(Class forClass, Annotation qualifier, InjectionUnit injection) {
+        return addMapping(Key.of(forClass, qualifier), injection);
+    }
+
+    /**
+     * Add an injection rule of a class qualified by an annotation without attribute
+     *
+     * @param forClass      The class to inject
+     * @param qualifierType The qualifier (an annotation with {@code @javax.inject.Qualifier})
+     * @param injection     The injection rule
+     * @return The batch
+     * @throws IllegalArgumentException if the annotation is not a qualifier, or has attributes
+     */
+    public BindingBatch addMapping(Class forClass, Class<? extends Annotation> qualifierType, InjectionUnit injection) {
+        return addMapping(Key.of(forClass, qualifierType), injection);
+    }
+
+    /**
+     * Add an injection rule of a qualified class
+     *
+     * @param key       The qualified class
+     * @param injection The injection rule
+     * @return The batch
+     */
+    private BindingBatch addMapping(final Key key, final InjectionUnit injection) {
+        changedClasses.add(key.getType());
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                return bindings.withQualified(key, injection);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Remove the injection rule of a qualified class
+     *
+     * @param forClass  The class
+     * @param qualifier The qualifier
+     * @return The batch
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     */
+    public BindingBatch removeMapping(Class forClass, Annotation qualifier) {
+        final Key key = Key.of(forClass, qualifier);
+        changedClasses.add(forClass);
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                return bindings.withoutQualified(key);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Remove the injection rule of a qualified class, only if it's still a given rule
+     *
+     * @param forClass  The class
+     * @param qualifier The qualifier
+     * @param injection The injection rule to remove (compared by identity)
+     * @return The batch
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     */
+    BindingBatch removeMapping(Class forClass, Annotation qualifier, final InjectionUnit injection) {
+        final Key key = Key.of(forClass, qualifier);
+        changedClasses.add(forClass);
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                return bindings.getQualified(key) == injection ? bindings.withoutQualified(key) : bindings;
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Add a contribution to the multibinding of a class
+     *
+     * @param forClass     The class to inject
+     * @param contribution The injection rule of the contribution
+     * @return The batch
+     */
+    public BindingBatch addMultiMapping(final Class forClass, final InjectionUnit contribution) {
+        changedClasses.add(forClass);
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                MultiBinding current = bindings.getMulti(forClass);
+                return bindings.withMulti(
+                        forClass,
+                        current == null ? new MultiBinding(forClass, contribution) : current.with(contribution)
+                );
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Remove all the contributions of a multibinding class
+     *
+     * @param forClass The class
+     * @return The batch
+     */
+    public BindingBatch removeMultiMapping(final Class forClass) {
+        changedClasses.add(forClass);
+        changes.add(new Change() {
+            @Override
+            public Bindings apply(Bindings bindings) {
+                return bindings.withoutMulti(forClass);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Create a new snapshot with the changes of the batch
+     *
+     * @param current The snapshot to start from
+     * @return The new snapshot
+     */
+    Bindings applyTo(Bindings current) {
+        Bindings bindings = current;
+        for (Change change : changes) {
+            bindings = change.apply(bindings);
+        }
+        return bindings;
+    }
+
+    /**
+     * Get the classes affected by the changes
+     *
+     * @return Set of class
+     */
+    Set<Class> getChangedClasses() {
+        return Collections.unmodifiableSet(changedClasses);
+    }
+
+    /**
+     * One change of the batch
+     */
+    private interface Change {
+        /**
+         * Apply the change on a snapshot
+         *
+         * @param bindings The snapshot to change
+         * @return The changed snapshot
+         */
+        Bindings apply(Bindings bindings);
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.macfja.injector;
+
+import java.util.Set;
+
+/**
+ * Bindings class.
+ * Immutable snapshot of the mapping of an injector.
+ * A new snapshot is published for every change, so a resolution always work on one consistent configuration.
+ * A new snapshot shares all the unchanged entries with the previous one (no full copy on each change).
+ *
+ * @author MacFJA
+ */
+final class Bindings {
+    /**
+     * Snapshot without any mapping
+     */
+    static final Bindings EMPTY = new Bindings(
+            PersistentMap.<Class, InjectionUnit>empty(),
+            PersistentMap.<Class, MultiBinding>empty(),
+            PersistentMap.<Key, InjectionUnit>empty()
+    );
+
+    /**
+     * Mapping of class that have a particular injection
+     */
+    private final PersistentMap<Class, InjectionUnit> mapping;
+    /**
+     * Mapping of class that have several injections (multibinding)
+     */
+    private final PersistentMap<Class, MultiBinding> multiMapping;
+    /**
+     * Mapping of qualified classes
+     */
+    private final PersistentMap<Key, InjectionUnit> qualifiedMapping;
+
+    /**
+     * Simple Constructor
+     *
+     * @param mapping          The mapping
+     * @param multiMapping     The multibinding mapping
+     * @param qualifiedMapping The qualified mapping
+     */
+    private Bindings(PersistentMap<Class, InjectionUnit> mapping, PersistentMap<Class, MultiBinding> multiMapping,
+                     PersistentMap<Key, InjectionUnit> qualifiedMapping) {
+        this.mapping = mapping;
+        this.multiMapping = multiMapping;
+        this.qualifiedMapping = qualifiedMapping;
+    }
+
+    /**
+     * Get the injection rule of a class
+     *
+     * @param aClass The class
+     * @return The injection rule, {@code null} if the class is not mapped
+     */
+    InjectionUnit get(Class aClass) {
+        return mapping.get(aClass);
+    }
+
+    /**
+     * Get the injection rule of a qualified class
+     *
+     * @param key The qualified class
+     * @return The injection rule, {@code null} if the qualified class is not mapped
+     */
+    InjectionUnit getQualified(Key key) {
+        return qualifiedMapping.get(key);
+    }
+
+    /**
+     * Get the contributions of a multibinding class
+     *
+     * @param aClass The class
+     * @return The contributions, {@code null} if the class doesn't have contributions
+     */
+    MultiBinding getMulti(Class aClass) {
+        return multiMapping.get(aClass);
+    }
+
+    /**
+     * Indicate if there is at least one multibinding
+     *
+     * @return {@code true} if there is no multibinding
+     */
+    boolean isMultiEmpty() {
+        return multiMapping.isEmpty();
+    }
+
+    /**
+     * Check if some injection rules are the same in another snapshot
+     *
+     * @param other        The other snapshot
+     * @param dependencies The classes (for their mapping and multibinding) and the qualified classes to compare
+     * @return {@code true} if every rule is the same in both snapshots
+     */
+    boolean hasSameRules(Bindings other, Set<Object> dependencies) {
+        if (other == this) {
+            return true;
+        }
+        for (Object dependency : dependencies) {
+            if (dependency instanceof Key) {
+                if (getQualified((Key) dependency) != other.getQualified((Key) dependency)) {
+                    return false;
+                }
+            } else if (get((Class) dependency) != other.get((Class) dependency)
+                    || getMulti((Class) dependency) != other.getMulti((Class) dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create a snapshot with the injection rule of a class added (or replaced)
+     *
+     * @param aClass    The class
+     * @param injection The injection rule
+     * @return The new snapshot
+     */
+    Bindings withMapping(Class aClass, InjectionUnit injection) {
+        return new Bindings(mapping.with(aClass, injection), multiMapping, qualifiedMapping);
+    }
+
+    /**
+     * Create a snapshot with the injection rule of a class removed
+     *
+     * @param aClass The class
+     * @return The new snapshot
+     */
+    Bindings withoutMapping(Class aClass) {
+        return new Bindings(mapping.without(aClass), multiMapping, qualifiedMapping);
+    }
+
+    /**
+     * Create a snapshot with the injection rule of a qualified class added (or replaced)
+     *
+     * @param key       The qualified class
+     * @param injection The injection rule
+     * @return The new snapshot
+     */
+    Bindings withQualified(Key key, InjectionUnit injection) {
+        return new Bindings(mapping, multiMapping, qualifiedMapping.with(key, injection));
+    }
+
+    /**
+     * Create a snapshot with the injection rule of a qualified class removed
+     *
+     * @param key The qualified class
+     * @return The new snapshot
+     */
+    Bindings withoutQualified(Key key) {
+        return new Bindings(mapping, multiMapping, qualifiedMapping.without(key));
+    }
+
+    /**
+     * Create a snapshot with the contributions of a multibinding class replaced
+     *
+     * @param aClass  The class
+     * @param binding The contributions
+     * @return The new snapshot
+     */
+    Bindings withMulti(Class aClass, MultiBinding binding) {
+        return new Bindings(mapping, multiMapping.with(aClass, binding), qualifiedMapping);
+    }
+
+    /**
+     * Create a snapshot with the contributions of a multibinding class removed
+     *
+     * @param aClass The class
+     * @return The new snapshot
+     */
+    Bindings withoutMulti(Class aClass) {
+        return new Bindings(mapping, multiMapping.without(aClass), qualifiedMapping);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Bindings bindings = (Bindings) o;
+
+        if (!mapping.equals(bindings.mapping)) return false;
+        if (!multiMapping.equals(bindings.multiMapping)) return false;
+        return qualifiedMapping.equals(bindings.qualifiedMapping);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * mapping.hashCode() + multiMapping.hashCode()) + qualifiedMapping.hashCode();
+    }
+}
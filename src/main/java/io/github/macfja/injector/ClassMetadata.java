@@ -0,0 +1,366 @@
+package io.github.macfja.injector;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ClassMetadata class.
+ * The reflective information of a class used by the injection (constructors, parameters types and qualifiers,
+ * injectable properties and setters, public methods, lifecycle methods).
+ * <p>
+ * The information doesn't depend on an injector: it's computed once per class and shared by every injector of the JVM.
+ * It's stored with a {@link ClassValue}, so it doesn't prevent a class (and its class loader) to be unloaded.
+ * Arrays returned by this class are shared, they must not be modified.
+ *
+ * @author MacFJA
+ */
+final class ClassMetadata {
+    /**
+     * The JVM-wide cache
+     */
+    private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    /**
+     * Public constructors
+     */
+    private final Constructor[] constructors;
+    /**
+     * Parameters types of each public constructor
+     */
+    private final Type[][] constructorParameters;
+    /**
+     * Qualifier of each parameter of each public constructor ({@code null} for unqualified parameters)
+     */
+    private final Key[][] constructorQualifiers;
+    /**
+     * Properties with the {@code @Inject} annotation
+     */
+    private final Field[] injectableFields;
+    /**
+     * Qualifier of each injectable property ({@code null} for unqualified properties)
+     */
+    private final Key[] fieldQualifiers;
+    /**
+     * Setters with the {@code @Inject} annotation
+     */
+    private final Method[] injectableSetters;
+    /**
+     * Parameter type of each injectable setter
+     */
+    private final Type[] setterParameters;
+    /**
+     * Qualifier of each injectable setter parameter ({@code null} for unqualified parameters)
+     */
+    private final Key[] setterQualifiers;
+    /**
+     * Public methods
+     */
+    private final Method[] publicMethods;
+    /**
+     * Methods with the {@code @PostConstruct} annotation (parent class methods first)
+     */
+    private final Method[] postConstructMethods;
+    /**
+     * Methods with the {@code @PreDestroy} annotation (child class methods first)
+     */
+    private final Method[] preDestroyMethods;
+
+    /**
+     * Read the information of a class
+     *
+     * @param type The class
+     */
+    private ClassMetadata(Class type) {
+        constructors = type.getConstructors();
+        constructorParameters = new Type[constructors.length][];
+        constructorQualifiers = new Key[constructors.length][];
+        for (int index = 0; index < constructors.length; index++) {
+            constructorParameters[index] = parameterTypes(constructors[index]);
+            constructorQualifiers[index] = qualifiers(constructors[index]);
+        }
+
+        Set<Field> fields = new LinkedHashSet<>();
+        fields.addAll(Arrays.asList(type.getFields()));
+        fields.addAll(Arrays.asList(type.getDeclaredFields()));
+        List<Field> injectable = new ArrayList<>();
+        for (Field field : fields) {
+            if (field.isAnnotationPresent(Inject.class)) {
+                injectable.add(field);
+            }
+        }
+        injectableFields = injectable.toArray(new Field[injectable.size()]);
+        fieldQualifiers = new Key[injectableFields.length];
+        for (int index = 0; index < injectableFields.length; index++) {
+            fieldQualifiers[index] = Key.of(injectableFields[index].getType(), injectableFields[index].getAnnotations());
+        }
+
+        publicMethods = type.getMethods();
+        Set<Method> methods = new LinkedHashSet<>();
+        methods.addAll(Arrays.asList(type.getDeclaredMethods()));
+        methods.addAll(Arrays.asList(publicMethods));
+        List<Method> setters = new ArrayList<>();
+        for (Method method : methods) {
+            if (
+                    method.getName().startsWith("set")
+                            && method.getParameterTypes().length == 1
+                            && method.isAnnotationPresent(Inject.class)
+                    ) {
+                setters.add(method);
+            }
+        }
+        injectableSetters = setters.toArray(new Method[setters.size()]);
+        setterParameters = new Type[injectableSetters.length];
+        setterQualifiers = new Key[injectableSetters.length];
+        for (int index = 0; index < injectableSetters.length; index++) {
+            setterParameters[index] = parameterTypes(injectableSetters[index])[0];
+            setterQualifiers[index] = Key.of(
+                    injectableSetters[index].getParameterTypes()[0],
+                    injectableSetters[index].getParameterAnnotations()[0]
+            );
+        }
+
+        List<Method> postConstruct = lifecycleMethods(type, PostConstruct.class);
+        postConstructMethods = postConstruct.toArray(new Method[postConstruct.size()]);
+        List<Method> preDestroy = lifecycleMethods(type, PreDestroy.class);
+        Collections.reverse(preDestroy);
+        preDestroyMethods = preDestroy.toArray(new Method[preDestroy.size()]);
+    }
+
+    /**
+     * Find the lifecycle methods (without parameter) of a class and its parents.
+     * A method overridden by a subclass is not a lifecycle method of the class (even if the override is annotated,
+     * it's called only once).
+     *
+     * @param type       The class
+     * @param annotation The lifecycle annotation
+     * @return The methods, parent class methods first
+     */
+    private static List<Method> lifecycleMethods(Class type, Class<? extends Annotation> annotation) {
+        List<Class> hierarchy = new ArrayList<>();
+        for (Class current = type; current != null && !Object.class.equals(current); current = current.getSuperclass()) {
+            hierarchy.add(current);
+        }
+        List<Method> found = new ArrayList<>();
+        for (int level = hierarchy.size() - 1; level >= 0; level--) {
+            for (Method method : hierarchy.get(level).getDeclaredMethods()) {
+                if (method.isAnnotationPresent(annotation) && method.getParameterTypes().length == 0
+                        && !isOverridden(method, hierarchy.subList(0, level))) {
+                    method.setAccessible(true);
+                    found.add(method);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Check if a method without parameter is overridden by a subclass
+     *
+     * @param method     The method
+     * @param subclasses The subclasses between the class and the declaring class of the method
+     * @return {@code true} if a subclass override the method
+     */
+    private static boolean isOverridden(Method method, List<Class> subclasses) {
+        int modifiers = method.getModifiers();
+        if (Modifier.isPrivate(modifiers) || Modifier.isStatic(modifiers)) {
+            return false;
+        }
+        boolean packagePrivate = !Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers);
+        for (Class subclass : subclasses) {
+            try {
+                subclass.getDeclaredMethod(method.getName());
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            if (!packagePrivate || packageName(subclass).equals(packageName(method.getDeclaringClass()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the package name of a class
+     *
+     * @param type The class
+     * @return The package name (empty for the default package)
+     */
+    private static String packageName(Class type) {
+        String name = type.getName();
+        int separator = name.lastIndexOf('.');
+        return separator < 0 ? "" : name.substring(0, separator);
+    }
+
+    /**
+     * Get the information of a class
+     *
+     * @param type The class
+     * @return The shared information
+     */
+    static ClassMetadata of(Class type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Get the parameters types of a constructor, with generics when available
+     *
+     * @param constructor The constructor
+     * @return The parameters types
+     */
+    static Type[] parameterTypes(Constructor constructor) {
+        Type[] generic = constructor.getGenericParameterTypes();
+        // Synthetic parameters (like the outer instance) are not in the generic signature
+        return generic.length == constructor.getParameterTypes().length ? generic : constructor.getParameterTypes();
+    }
+
+    /**
+     * Get the qualifiers of the parameters of a constructor
+     *
+     * @param constructor The constructor
+     * @return The qualifier of each parameter ({@code null} for unqualified parameters)
+     */
+    static Key[] qualifiers(Constructor constructor) {
+        Class[] types = constructor.getParameterTypes();
+        Annotation[][] annotations = constructor.getParameterAnnotations();
+        // Synthetic parameters (like the outer instance) may not have annotations
+        int offset = types.length - annotations.length;
+        Key[] qualifiers = new Key[types.length];
+        for (int index = offset; index < types.length; index++) {
+            qualifiers[index] = Key.of(types[index], annotations[index - offset]);
+        }
+        return qualifiers;
+    }
+
+    /**
+     * Get the parameters types of a method, with generics when available
+     *
+     * @param method The method
+     * @return The parameters types
+     */
+    static Type[] parameterTypes(Method method) {
+        Type[] generic = method.getGenericParameterTypes();
+        return generic.length == method.getParameterTypes().length ? generic : method.getParameterTypes();
+    }
+
+    /**
+     * Get the public constructors
+     *
+     * @return The constructors
+     */
+    Constructor[] getConstructors() {
+        return constructors;
+    }
+
+    /**
+     * Get the parameters types of a public constructor
+     *
+     * @param index The index of the constructor in {@link #getConstructors()}
+     * @return The parameters types
+     */
+    Type[] getConstructorParameters(int index) {
+        return constructorParameters[index];
+    }
+
+    /**
+     * Get the qualifiers of the parameters of a public constructor
+     *
+     * @param index The index of the constructor in {@link #getConstructors()}
+     * @return The qualifier of each parameter ({@code null} for unqualified parameters)
+     */
+    Key[] getConstructorQualifiers(int index) {
+        return constructorQualifiers[index];
+    }
+
+    /**
+     * Get the properties with the {@code @Inject} annotation
+     *
+     * @return The properties
+     */
+    Field[] getInjectableFields() {
+        return injectableFields;
+    }
+
+    /**
+     * Get the qualifier of an injectable property
+     *
+     * @param index The index of the property in {@link #getInjectableFields()}
+     * @return The qualifier, {@code null} if the property is not qualified
+     */
+    Key getFieldQualifier(int index) {
+        return fieldQualifiers[index];
+    }
+
+    /**
+     * Get the setters (one parameter, name starting with "set") with the {@code @Inject} annotation
+     *
+     * @return The setters
+     */
+    Method[] getInjectableSetters() {
+        return injectableSetters;
+    }
+
+    /**
+     * Get the parameter type of an injectable setter
+     *
+     * @param index The index of the setter in {@link #getInjectableSetters()}
+     * @return The parameter type
+     */
+    Type getSetterParameter(int index) {
+        return setterParameters[index];
+    }
+
+    /**
+     * Get the qualifier of the parameter of an injectable setter
+     *
+     * @param index The index of the setter in {@link #getInjectableSetters()}
+     * @return The qualifier, {@code null} if the parameter is not qualified
+     */
+    Key getSetterQualifier(int index) {
+        return setterQualifiers[index];
+    }
+
+    /**
+     * Get the methods to call once the instance is injected
+     *
+     * @return The methods ({@code @PostConstruct}), parent class methods first
+     */
+    Method[] getPostConstructMethods() {
+        return postConstructMethods;
+    }
+
+    /**
+     * Get the methods to call before the instance is disposed
+     *
+     * @return The methods ({@code @PreDestroy}), child class methods first
+     */
+    Method[] getPreDestroyMethods() {
+        return preDestroyMethods;
+    }
+
+    /**
+     * Get the public methods
+     *
+     * @return The methods
+     */
+    Method[] getPublicMethods() {
+        return publicMethods;
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.macfja.injector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CloseReport class.
+ * Result of the closing of the singletons of an injector.
+ *
+ * @author MacFJA
+ */
+public class CloseReport {
+    /**
+     * The closed instances, in closing order
+     */
+    private final List<Entry> entries = new ArrayList<>();
+    /**
+     * The closed instances (for fast lookup)
+     */
+    private final Map<Object, Entry> closed = new IdentityHashMap<>();
+    /**
+     * The instances that haven't been closed before the deadline
+     */
+    private final List<Object> notClosed = new ArrayList<>();
+    /**
+     * Indicate if the report is complete (the closing still in progress after the deadline are ignored)
+     */
+    private boolean finished = false;
+
+    /**
+     * Add a closed instance (ignored if the report is already finished)
+     *
+     * @param instance The closed instance
+     * @param nanos    The time spent to close the instance (in nanoseconds)
+     * @param error    The error throws by the close method ({@code null} if none)
+     */
+    synchronized void add(Object instance, long nanos, Throwable error) {
+        if (finished) {
+            // Closed after the deadline: already reported as not closed
+            return;
+        }
+        Entry entry = new Entry(instance, nanos, error);
+        entries.add(entry);
+        closed.put(instance, entry);
+    }
+
+    /**
+     * Finish the report: the instances not closed yet are reported as not closed, and the report doesn't change
+     * anymore (even if their closing ends later)
+     *
+     * @param instances The instances to close
+     */
+    synchronized void finish(List<Object> instances) {
+        for (Object instance : instances) {
+            if (!closed.containsKey(instance)) {
+                notClosed.add(instance);
+            }
+        }
+        finished = true;
+    }
+
+    /**
+     * Check if an instance have been closed
+     *
+     * @param instance The instance
+     * @return {@code true} if the instance have been closed (with or without error)
+     */
+    public synchronized boolean isClosed(Object instance) {
+        return closed.containsKey(instance);
+    }
+
+    /**
+     * Get the closed instances, in closing order
+     *
+     * @return List of closing information
+     */
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * Get the instances that haven't been closed before the deadline
+     *
+     * @return List of instance
+     */
+    public synchronized List<Object> getNotClosed() {
+        return Collections.unmodifiableList(new ArrayList<>(notClosed));
+    }
+
+    /**
+     * Indicate if every instances have been closed before the deadline
+     *
+     * @return {@code true} if all instances are closed
+     */
+    public synchronized boolean isComplete() {
+        return notClosed.isEmpty();
+    }
+
+    /**
+     * Closing information of one instance
+     */
+    public static class Entry {
+        /**
+         * The closed instance
+         */
+        private final Object instance;
+        /**
+         * Time spent to close the instance, in nanoseconds
+         */
+        private final long nanos;
+        /**
+         * The error throws while closing
+         */
+        private final Throwable error;
+
+        /**
+         * Simple Constructor
+         *
+         * @param instance The closed instance
+         * @param nanos    The time spent to close the instance (in nanoseconds)
+         * @param error    The error throws by the close method ({@code null} if none)
+         */
+        Entry(Object instance, long nanos, Throwable error) {
+            this.instance = instance;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        /**
+         * Get the closed instance
+         *
+         * @return The instance
+         */
+        public Object getInstance() {
+            return instance;
+        }
+
+        /**
+         * Get the time spent to close the instance
+         *
+         * @param unit The unit of the result
+         * @return The duration
+         */
+        public long getDuration(TimeUnit unit) {
+            return unit.convert(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Get the error throws while closing
+         *
+         * @return The error, {@code null} if the instance is closed without error
+         */
+        public Throwable getError() {
+            return error;
+        }
+    }
+}
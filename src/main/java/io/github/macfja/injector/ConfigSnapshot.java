@@ -0,0 +1,195 @@
+package io.github.macfja.injector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * ConfigSnapshot class.
+ * Immutable configuration values, injected in the injection points qualified with {@code @Named} and of type
+ * {@code String}, primitive or boxed primitive (see {@link Injector#setConfig(ConfigSnapshot)}).
+ * <p>
+ * The values are converted once, when the snapshot is created, into every type they can be read as
+ * (for instance "8080" is a {@code String}, an {@code int}, a {@code long}, a {@code double}, ...).
+ * The names and values are stored in sorted arrays.
+ *
+ * @author MacFJA
+ */
+public final class ConfigSnapshot {
+    /**
+     * The types a value can be injected as
+     */
+    private static final Class[] TYPES = {
+            String.class,
+            boolean.class, Boolean.class,
+            char.class, Character.class,
+            byte.class, Byte.class,
+            short.class, Short.class,
+            int.class, Integer.class,
+            long.class, Long.class,
+            float.class, Float.class,
+            double.class, Double.class
+    };
+
+    /**
+     * The names of the values (sorted)
+     */
+    private final String[] names;
+    /**
+     * The converted values of each name, by type of {@link #TYPES} ({@code null} if the value can't be converted)
+     */
+    private final Object[][] values;
+    /**
+     * The injection units of the converted values, by type of {@link #TYPES}
+     * (created once, so the mappings installed by the snapshot can be recognized)
+     */
+    private final InjectionUnit[][] units;
+
+    /**
+     * Convert the values
+     *
+     * @param source The values as strings
+     */
+    private ConfigSnapshot(Map<String, String> source) {
+        names = source.keySet().toArray(new String[source.size()]);
+        Arrays.sort(names);
+        values = new Object[names.length][];
+        units = new InjectionUnit[names.length][TYPES.length];
+        for (int index = 0; index < names.length; index++) {
+            values[index] = convert(source.get(names[index]));
+            for (int typeIndex = 0; typeIndex < TYPES.length; typeIndex++) {
+                if (values[index][typeIndex] != null) {
+                    units[index][typeIndex] = new InjectionUnit(values[index][typeIndex]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a snapshot of string values
+     *
+     * @param values The values by name
+     * @return The snapshot
+     */
+    public static ConfigSnapshot of(Map<String, String> values) {
+        return new ConfigSnapshot(new HashMap<>(values));
+    }
+
+    /**
+     * Create a snapshot of properties (including the defaults)
+     *
+     * @param properties The properties
+     * @return The snapshot
+     */
+    public static ConfigSnapshot of(Properties properties) {
+        Map<String, String> values = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            values.put(name, properties.getProperty(name));
+        }
+        return new ConfigSnapshot(values);
+    }
+
+    /**
+     * Convert a value into every type it can be read as
+     *
+     * @param value The value
+     * @return The value by type of {@link #TYPES}
+     */
+    private static Object[] convert(String value) {
+        Object[] converted = new Object[TYPES.length];
+        converted[0] = value;
+        String trimmed = value.trim();
+        if ("true".equalsIgnoreCase(trimmed) || "false".equalsIgnoreCase(trimmed)) {
+            converted[1] = Boolean.valueOf(trimmed);
+        }
+        if (value.length() == 1) {
+            converted[3] = value.charAt(0);
+        }
+        try {
+            long number = Long.parseLong(trimmed);
+            if (number >= Byte.MIN_VALUE && number <= Byte.MAX_VALUE) {
+                converted[5] = (byte) number;
+            }
+            if (number >= Short.MIN_VALUE && number <= Short.MAX_VALUE) {
+                converted[7] = (short) number;
+            }
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                converted[9] = (int) number;
+            }
+            converted[11] = number;
+        } catch (NumberFormatException e) {
+            // Not an integer
+        }
+        try {
+            double number = Double.parseDouble(trimmed);
+            converted[13] = (float) number;
+            converted[15] = number;
+        } catch (NumberFormatException e) {
+            // Not a number
+        }
+        // Boxed types share the value of their primitive type
+        for (int index = 2; index < TYPES.length; index += 2) {
+            converted[index] = converted[index - 1];
+        }
+        return converted;
+    }
+
+    /**
+     * Get the number of values
+     *
+     * @return The number of names
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Get a value
+     *
+     * @param name The name of the value
+     * @param type The type to read the value as ({@code String}, primitive or boxed primitive)
+     * @return The value (boxed for a primitive type), {@code null} if there is no value with this name,
+     * or if it can't be read as this type
+     */
+    public <T> T get(String name, Class<T> type) {
+        int index = Arrays.binarySearch(names, name);
+        int typeIndex = Arrays.asList(TYPES).indexOf(type);
+        if (index < 0 || typeIndex < 0) {
+            return null;
+        }
+        return (T) values[index][typeIndex];
+    }
+
+    /**
+     * Add the mappings of the values to a batch: one qualified mapping ({@code @Named(name)}) per type a value can be
+     * read as
+     *
+     * @param batch The batch
+     */
+    void bind(BindingBatch batch) {
+        for (int index = 0; index < names.length; index++) {
+            for (int typeIndex = 0; typeIndex < TYPES.length; typeIndex++) {
+                if (units[index][typeIndex] != null) {
+                    batch.addMapping(TYPES[typeIndex], Names.named(names[index]), units[index][typeIndex]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the removal of the mappings of the values to a batch
+     * (a mapping replaced since the snapshot was bound is kept)
+     *
+     * @param batch The batch
+     */
+    void unbind(BindingBatch batch) {
+        for (int index = 0; index < names.length; index++) {
+            for (int typeIndex = 0; typeIndex < TYPES.length; typeIndex++) {
+                if (units[index][typeIndex] != null) {
+                    batch.removeMapping(TYPES[typeIndex], Names.named(names[index]), units[index][typeIndex]);
+                }
+            }
+        }
+    }
+}
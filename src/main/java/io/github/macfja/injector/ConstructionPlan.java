@@ -0,0 +1,327 @@
+package io.github.macfja.injector;
+
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ConstructionPlan class.
+ * The pre-linked construction of a hot binding (see {@link Injector#setHotThreshold(int)}): the constructor,
+ * the injected properties and setters and the {@code @PostConstruct} methods are chosen once, the injection unit of
+ * every dependency is resolved once, and the whole construction is composed in one method handle.
+ * The JVM compiles a hot method handle for its own bound values (JDK 8u60 and later), so the construction of
+ * each plan is compiled as one unit, with the constructor, the dependencies lookups and the member injections
+ * inlined; the call of the plan itself stays an indirect call (see the {@code benchmark} profile).
+ * <p>
+ * A plan is valid as long as the configuration revision is the same and the injection rules it read when it was
+ * linked (its dependencies) are the same in the mapping snapshot of the construction: the other mapping changes,
+ * and the clones of the injector with the same configuration, reuse it.
+ *
+ * @author MacFJA
+ */
+class ConstructionPlan {
+    /**
+     * Get the value of a dependency, with the signature {@code (Dependency dependency, Injector parent)Object}
+     */
+    private static final MethodHandle GET_VALUE;
+    /**
+     * Wrap an exception in an {@link InvocationTargetException}, with the signature {@code (Throwable)Object}
+     * (also used by {@link MethodInvoker})
+     */
+    static final MethodHandle RETHROW;
+    /**
+     * Log a property injection failure, with the signature {@code (Throwable)void}
+     */
+    private static final MethodHandle PROPERTY_FAILED;
+    /**
+     * Log a setter injection failure, with the signature {@code (Throwable)void}
+     */
+    private static final MethodHandle SETTER_FAILED;
+    /**
+     * Check if a value is missing, with the signature {@code (Object instance, Object value)boolean}
+     */
+    private static final MethodHandle IS_NULL;
+    /**
+     * Keep the default value of a property, with the signature {@code (Object instance, Object value)void}
+     */
+    private static final MethodHandle KEEP_DEFAULT;
+    /**
+     * Return the built instance, with the signature {@code (Object instance, Injector parent)Object}
+     */
+    private static final MethodHandle RETURN_INSTANCE;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType failure = MethodType.methodType(void.class, Throwable.class);
+        MethodType pair = MethodType.methodType(void.class, Object.class, Object.class);
+        try {
+            GET_VALUE = lookup.findVirtual(Dependency.class, "get", MethodType.methodType(Object.class, Injector.class));
+            RETHROW = lookup.findStatic(ConstructionPlan.class, "rethrow", MethodType.methodType(Object.class, Throwable.class));
+            PROPERTY_FAILED = lookup.findStatic(ConstructionPlan.class, "propertyFailed", failure);
+            SETTER_FAILED = lookup.findStatic(ConstructionPlan.class, "setterFailed", failure);
+            IS_NULL = lookup.findStatic(ConstructionPlan.class, "isNull", pair.changeReturnType(boolean.class));
+            KEEP_DEFAULT = lookup.findStatic(ConstructionPlan.class, "keepDefault", pair);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        RETURN_INSTANCE = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, Injector.class);
+    }
+
+    /**
+     * The mapping snapshot the plan was linked with (or checked against)
+     */
+    private final Bindings bindings;
+    /**
+     * The classes (and qualified classes) which injection rules have been read to link the plan
+     */
+    private final Set<Object> dependencies;
+    /**
+     * The injector configuration revision the plan was linked with
+     */
+    private final int revision;
+    /**
+     * The whole construction, with the signature {@code (Injector parent)Object}
+     * ({@code null} if the construction can't be pre-linked)
+     */
+    private final MethodHandle construction;
+
+    /**
+     * Simple Constructor
+     *
+     * @param injector     The injector the plan is linked for
+     * @param dependencies The classes which injection rules have been read to link the plan
+     * @param construction The whole construction
+     */
+    private ConstructionPlan(Injector injector, Set<Object> dependencies, MethodHandle construction) {
+        this.bindings = injector.current();
+        this.dependencies = dependencies;
+        this.revision = injector.getRevision();
+        this.construction = construction;
+    }
+
+    /**
+     * Copy a plan for a mapping snapshot with the same rules for its dependencies
+     *
+     * @param plan     The plan
+     * @param bindings The mapping snapshot
+     */
+    private ConstructionPlan(ConstructionPlan plan, Bindings bindings) {
+        this.bindings = bindings;
+        this.dependencies = plan.dependencies;
+        this.revision = plan.revision;
+        this.construction = plan.construction;
+    }
+
+    /**
+     * Link the construction of a class (see {@link Injector#linkPlan(Class)})
+     *
+     * @param toInject     The class to build
+     * @param injector     The injector (with the mapping snapshot of the current thread)
+     * @param dependencies The set filled by the injector with the rules read during the link
+     * @return The plan, a plan that is not linked if the class must be built with the generic construction
+     */
+    static ConstructionPlan link(Class toInject, Injector injector, Set<Object> dependencies) {
+        ClassMetadata metadata = ClassMetadata.of(toInject);
+        int selected = metadata.getConstructors().length == 0 ? -1 : InjectionUnit.findConstructor(metadata, injector);
+        if (selected < 0) {
+            return unlinked(injector, dependencies);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodType member = MethodType.methodType(void.class, Object.class, Object.class);
+            Type[] parameters = metadata.getConstructorParameters(selected);
+            MethodHandle target = lookup.unreflectConstructor(metadata.getConstructors()[selected]);
+            // The constructor exceptions are wrapped before the conversion of the arguments, so they can be told apart
+            MethodHandle constructor = MethodHandles.catchException(
+                    target, Throwable.class, RETHROW.asType(MethodType.methodType(target.type().returnType(), Throwable.class))
+            ).asType(MethodType.genericMethodType(parameters.length));
+            Key[] qualifiers = metadata.getConstructorQualifiers(selected);
+            MethodHandle[] arguments = new MethodHandle[parameters.length];
+            for (int index = 0; index < parameters.length; index++) {
+                arguments[index] = value(new Dependency(parameters[index], qualifiers[index], injector));
+            }
+            // Every argument is read from the same parent injector
+            constructor = MethodHandles.permuteArguments(
+                    MethodHandles.filterArguments(constructor, 0, arguments),
+                    MethodType.methodType(Object.class, Injector.class), new int[parameters.length]
+            );
+
+            List<MethodHandle> steps = new ArrayList<>();
+            if (injector.getInjectProperties()) {
+                Field[] fields = metadata.getInjectableFields();
+                for (int index = 0; index < fields.length; index++) {
+                    Dependency value = new Dependency(fields[index].getGenericType(), metadata.getFieldQualifier(index), injector);
+                    MethodHandle property = MethodHandles.catchException(
+                            lookup.unreflectSetter(fields[index]).asType(member), Throwable.class, PROPERTY_FAILED
+                    );
+                    if (value.isPrimitive()) {
+                        property = MethodHandles.guardWithTest(IS_NULL, KEEP_DEFAULT, property);
+                    }
+                    steps.add(MethodHandles.filterArguments(property, 1, value(value)));
+                }
+            }
+
+            if (injector.getInjectSetters()) {
+                Method[] methods = metadata.getInjectableSetters();
+                for (int index = 0; index < methods.length; index++) {
+                    Type parameter = metadata.getSetterParameter(index);
+                    Key qualifier = metadata.getSetterQualifier(index);
+                    if (!injector.isInjectable(parameter, qualifier)) {
+                        continue;
+                    }
+                    MethodHandle setter = MethodHandles.catchException(
+                            lookup.unreflect(methods[index]).asType(member), Throwable.class, SETTER_FAILED
+                    );
+                    steps.add(MethodHandles.filterArguments(setter, 1, value(new Dependency(parameter, qualifier, injector))));
+                }
+            }
+
+            MethodHandle failure = RETHROW.asType(MethodType.methodType(void.class, Throwable.class));
+            for (Method method : metadata.getPostConstructMethods()) {
+                MethodHandle postConstruct = MethodHandles.catchException(
+                        lookup.unreflect(method).asType(MethodType.methodType(void.class, Object.class)),
+                        Throwable.class, failure
+                );
+                steps.add(MethodHandles.dropArguments(postConstruct, 1, Injector.class));
+            }
+
+            // Each step is run, in order, before the rest of the construction
+            MethodHandle members = RETURN_INSTANCE;
+            for (int index = steps.size() - 1; index >= 0; index--) {
+                members = MethodHandles.foldArguments(members, steps.get(index));
+            }
+            return new ConstructionPlan(injector, dependencies, MethodHandles.foldArguments(members, constructor));
+        } catch (IllegalAccessException e) {
+            // Not accessible through a method handle: fallback on reflection
+            return unlinked(injector, dependencies);
+        }
+    }
+
+    /**
+     * Get the handle that read the value of a dependency
+     *
+     * @param dependency The dependency
+     * @return The handle, with the signature {@code (Injector parent)Object}
+     */
+    private static MethodHandle value(Dependency dependency) {
+        return GET_VALUE.bindTo(dependency);
+    }
+
+    /**
+     * Wrap an exception of the constructor or of a {@code @PostConstruct} method
+     *
+     * @param throwable The exception
+     * @return Nothing, always throws
+     * @throws InvocationTargetException always
+     */
+    private static Object rethrow(Throwable throwable) throws InvocationTargetException {
+        throw new InvocationTargetException(throwable);
+    }
+
+    /**
+     * Log a property injection failure
+     *
+     * @param throwable The exception
+     */
+    private static void propertyFailed(Throwable throwable) {
+        LoggerFactory.getLogger(ConstructionPlan.class).warn("Can't inject into property", throwable);
+    }
+
+    /**
+     * Log a setter injection failure
+     *
+     * @param throwable The exception
+     */
+    private static void setterFailed(Throwable throwable) {
+        LoggerFactory.getLogger(ConstructionPlan.class).warn("Can't inject into setter", throwable);
+    }
+
+    /**
+     * Check if a value is missing
+     *
+     * @param instance The instance
+     * @param value    The value
+     * @return {@code true} if the value is {@code null}
+     */
+    private static boolean isNull(Object instance, Object value) {
+        return value == null;
+    }
+
+    /**
+     * Keep the default value of a primitive property
+     *
+     * @param instance The instance
+     * @param value    The missing value
+     */
+    private static void keepDefault(Object instance, Object value) {
+    }
+
+    /**
+     * Create the marker of a class that use the generic construction
+     *
+     * @param injector     The injector
+     * @param dependencies The classes which injection rules have been read to reject the pre-linking
+     * @return The plan that is not linked
+     */
+    private static ConstructionPlan unlinked(Injector injector, Set<Object> dependencies) {
+        return new ConstructionPlan(injector, dependencies, null);
+    }
+
+    /**
+     * Get the plan to use for a construction by an injector
+     *
+     * @param parent The injector (with the mapping snapshot of the current thread)
+     * @return The plan, a copy of the plan for the snapshot of the injector (if the rules of its dependencies are the
+     * same), {@code null} if the plan is outdated
+     */
+    ConstructionPlan validFor(Injector parent) {
+        if (revision != parent.getRevision()) {
+            return null;
+        }
+        Bindings snapshot = parent.current();
+        if (bindings == snapshot) {
+            return this;
+        }
+        return bindings.hasSameRules(snapshot, dependencies) ? new ConstructionPlan(this, snapshot) : null;
+    }
+
+    /**
+     * Indicate if the construction is pre-linked
+     *
+     * @return {@code false} if the generic construction must be used
+     */
+    boolean isLinked() {
+        return construction != null;
+    }
+
+    /**
+     * Create an instance and inject its members
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The new instance
+     * @throws InvocationTargetException if the constructor or a {@code @PostConstruct} method throws an exception.
+     * @throws IllegalArgumentException  if a parameter value doesn't match the constructor.
+     */
+    Object construct(Injector parent) throws InvocationTargetException {
+        try {
+            return (Object) construction.invokeExact(parent);
+        } catch (ClassCastException | NullPointerException | WrongMethodTypeException e) {
+            // The conversion of a constructor argument failed (as the reflection does)
+            throw new IllegalArgumentException(e);
+        } catch (RuntimeException | Error | InvocationTargetException e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new InvocationTargetException(throwable);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.macfja.injector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Deadline class.
+ * The time limit of a construction, with the classes being built (to name them when the limit is reached).
+ * Used by only one thread.
+ *
+ * @author MacFJA
+ */
+class Deadline {
+    /**
+     * The time limit ({@link System#nanoTime()} based)
+     */
+    private final long end;
+    /**
+     * The classes being built, the deepest first
+     */
+    private final Deque<Class> building = new ArrayDeque<>();
+
+    /**
+     * Simple Constructor
+     *
+     * @param end The time limit ({@link System#nanoTime()} based)
+     */
+    Deadline(long end) {
+        this.end = end;
+    }
+
+    /**
+     * Get the time limit
+     *
+     * @return The time limit ({@link System#nanoTime()} based)
+     */
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Get the remaining time
+     *
+     * @return The remaining time, in nanoseconds (negative if the deadline is reached)
+     */
+    long remaining() {
+        return end - System.nanoTime();
+    }
+
+    /**
+     * Indicate that the construction of a class start.
+     * The class is added to the classes being built only if the deadline is not reached (nothing to remove with
+     * {@link #exit()} otherwise).
+     *
+     * @param type The class to build
+     * @throws ResolutionTimeoutException if the deadline is reached
+     */
+    void enter(Class type) {
+        if (remaining() < 0) {
+            throw named(type, "Deadline exceeded before building ");
+        }
+        building.push(type);
+    }
+
+    /**
+     * Indicate that the construction of the current class is finished (or failed)
+     */
+    void exit() {
+        building.pop();
+    }
+
+    /**
+     * Check the deadline once an instance is obtained
+     *
+     * @param type The class of the instance
+     * @throws ResolutionTimeoutException if the deadline is reached
+     */
+    void obtained(Class type) {
+        if (remaining() < 0) {
+            throw named(type, "Deadline exceeded while building ");
+        }
+    }
+
+    /**
+     * Create the exception for a class which singleton is still built by another thread
+     *
+     * @param type The class of the singleton
+     * @return The exception
+     */
+    ResolutionTimeoutException waiting(Class type) {
+        return named(type, "Deadline exceeded while waiting for the singleton ");
+    }
+
+    /**
+     * Create the exception for a class that is not (or no more) in the stack of classes being built
+     *
+     * @param type   The class
+     * @param reason The start of the exception message
+     * @return The exception
+     */
+    private ResolutionTimeoutException named(Class type, String reason) {
+        building.push(type);
+        try {
+            return timeout(reason);
+        } finally {
+            building.pop();
+        }
+    }
+
+    /**
+     * Create the exception for the current class
+     *
+     * @param reason The start of the exception message
+     * @return The exception
+     */
+    private ResolutionTimeoutException timeout(String reason) {
+        Class current = building.peek();
+        StringBuilder path = new StringBuilder();
+        for (Iterator<Class> iterator = building.descendingIterator(); iterator.hasNext(); ) {
+            path.append(iterator.next().getName());
+            if (iterator.hasNext()) {
+                path.append(" > ");
+            }
+        }
+        return new ResolutionTimeoutException(current, reason + current.getName() + " (" + path + ")");
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.macfja.injector;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+
+/**
+ * Dependency class.
+ * A value to inject, with the injection unit resolved at link time
+ * (see {@link ConstructionPlan} and {@link MethodInvoker}).
+ *
+ * @author MacFJA
+ */
+class Dependency {
+    /**
+     * The injected type
+     */
+    private final Type type;
+    /**
+     * The qualifier of the injection point ({@code null} if it is not qualified)
+     */
+    private final Key qualifier;
+    /**
+     * The injection unit of the type ({@code null} for a multibinding injection or an unmapped qualified class)
+     */
+    private final InjectionUnit unit;
+
+    /**
+     * Resolve the injection unit of an injection point
+     *
+     * @param type      The injected type
+     * @param qualifier The qualifier of the injection point ({@code null} if it is not qualified)
+     * @param injector  The injector
+     */
+    Dependency(Type type, Key qualifier, Injector injector) {
+        this.type = type;
+        this.qualifier = qualifier;
+        if (qualifier == null && injector.getContributions(type) != null) {
+            this.unit = null;
+        } else {
+            this.unit = injector.getUnit(type, qualifier);
+        }
+    }
+
+    /**
+     * Indicate if the injected type is a primitive type
+     *
+     * @return {@code true} if the value can't be {@code null}
+     */
+    boolean isPrimitive() {
+        return type instanceof Class && ((Class) type).isPrimitive();
+    }
+
+    /**
+     * Get the value to inject
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The value, {@code null} if it can't be created (unless the injector is strict)
+     */
+    Object get(Injector parent) {
+        if (unit == null) {
+            return parent.resolve(type, qualifier);
+        }
+        try {
+            return unit.get(parent);
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            return parent.failed(Injector.erase(type), qualifier, e);
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package io.github.macfja.injector;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DependencyGraph class.
+ * The dependency graph of a class, as it would be resolved by the injector (see
+ * {@link Injector#getDependencyGraph(Class)}), built without creating any instance.
+ * <p>
+ * A singleton appears once in the graph (all its dependents point to the same node),
+ * a new instance appears once per injection.
+ *
+ * @author MacFJA
+ */
+public class DependencyGraph {
+    /**
+     * The node of the requested class
+     */
+    private final Node root;
+    /**
+     * All nodes, in discovery order
+     */
+    private final List<Node> nodes = new ArrayList<>();
+    /**
+     * Nodes of the singletons (and soft/weak/striped singletons), to share them
+     */
+    private final Map<InjectionUnit, Node> shared = new IdentityHashMap<>();
+    /**
+     * Classes of the singletons used by the graph
+     */
+    private final Set<Class> singletons = new LinkedHashSet<>();
+    /**
+     * Number of instances created by each get
+     */
+    private int constructionsPerCall = 0;
+    /**
+     * Length of the longest dependency chain
+     */
+    private final int depth;
+
+    /**
+     * Analyse the graph of a class
+     *
+     * @param injector The injector (with the mapping snapshot of the current thread)
+     * @param aClass   The requested class
+     */
+    DependencyGraph(Injector injector, Class aClass) {
+        root = walk(injector, aClass, injector.getUnit(aClass), new ArrayDeque<Class>(), true);
+        depth = depth(root, new IdentityHashMap<Node, Integer>());
+    }
+
+    /**
+     * Create the node of an injection unit and of its dependencies
+     *
+     * @param injector The injector
+     * @param aClass   The requested class
+     * @param unit     The injection unit used for the class
+     * @param path     The classes being resolved (to detect cycles)
+     * @param perCall  {@code true} if the node is built on every get of the root
+     * @return The node
+     */
+    private Node walk(Injector injector, Class aClass, InjectionUnit unit, Deque<Class> path, boolean perCall) {
+        Class implementation = unit.getToInject();
+        InjectionUnit.Instantiation instantiation = unit.getType();
+        // Checked before the shared nodes: a singleton in construction is not available to its dependencies
+        if (path.contains(implementation)) {
+            Node cycle = new Node(aClass, implementation, instantiation, unit.isBuilt());
+            nodes.add(cycle);
+            cycle.cycle = true;
+            cycle.resolvable = false;
+            return cycle;
+        }
+        Node existing = shared.get(unit);
+        if (existing != null) {
+            return existing;
+        }
+        Node node = new Node(aClass, implementation, instantiation, unit.isBuilt());
+        nodes.add(node);
+
+        boolean isShared = !InjectionUnit.Instantiation.NewInstance.equals(instantiation)
+                && !InjectionUnit.Instantiation.Prototype.equals(instantiation);
+        if (isShared) {
+            shared.put(unit, node);
+            singletons.add(implementation);
+        } else if (perCall) {
+            constructionsPerCall++;
+        }
+        // Dependencies of a singleton or of a prototype template are built only once
+        boolean childrenPerCall = perCall && InjectionUnit.Instantiation.NewInstance.equals(instantiation);
+
+        path.push(implementation);
+        ClassMetadata metadata = ClassMetadata.of(implementation);
+        if (metadata.getConstructors().length == 0) {
+            int modifiers = implementation.getModifiers();
+            node.resolvable = node.built || !(Modifier.isAbstract(modifiers) || Modifier.isInterface(modifiers));
+        } else {
+            int selected = InjectionUnit.findConstructor(metadata, injector);
+            node.resolvable = node.built || selected >= 0;
+            if (selected >= 0) {
+                Type[] parameters = metadata.getConstructorParameters(selected);
+                Key[] qualifiers = metadata.getConstructorQualifiers(selected);
+                for (int index = 0; index < parameters.length; index++) {
+                    walk(injector, parameters[index], qualifiers[index], path, childrenPerCall, node);
+                }
+            }
+        }
+        if (node.resolvable) {
+            if (injector.getInjectProperties()) {
+                Field[] fields = metadata.getInjectableFields();
+                for (int index = 0; index < fields.length; index++) {
+                    Key qualifier = metadata.getFieldQualifier(index);
+                    if (injector.isInjectable(fields[index].getGenericType(), qualifier)) {
+                        walk(injector, fields[index].getGenericType(), qualifier, path, childrenPerCall, node);
+                    }
+                }
+            }
+            if (injector.getInjectSetters()) {
+                for (int index = 0; index < metadata.getInjectableSetters().length; index++) {
+                    Type parameter = metadata.getSetterParameter(index);
+                    Key qualifier = metadata.getSetterQualifier(index);
+                    if (injector.isInjectable(parameter, qualifier)) {
+                        walk(injector, parameter, qualifier, path, childrenPerCall, node);
+                    }
+                }
+            }
+        }
+        path.pop();
+        return node;
+    }
+
+    /**
+     * Add the nodes of an injected type (a class, or all the contributions of a multibinding) to a parent node
+     *
+     * @param injector  The injector
+     * @param type      The injected type
+     * @param qualifier The qualifier of the injection point ({@code null} if it is not qualified)
+     * @param path      The classes being resolved
+     * @param perCall   {@code true} if the nodes are built on every get of the root
+     * @param parent    The node to add the dependencies to
+     */
+    private void walk(Injector injector, Type type, Key qualifier, Deque<Class> path, boolean perCall, Node parent) {
+        InjectionUnit[] contributions = qualifier == null ? injector.getContributions(type) : null;
+        if (contributions == null) {
+            parent.children.add(walk(injector, Injector.erase(type), injector.getUnit(type, qualifier), path, perCall));
+            return;
+        }
+        for (InjectionUnit contribution : contributions) {
+            parent.children.add(walk(injector, contribution.getToInject(), contribution, path, perCall));
+        }
+    }
+
+    /**
+     * Compute the length of the longest dependency chain from a node
+     *
+     * @param node   The node
+     * @param depths The already computed depths ({@code 0} for the nodes in progress)
+     * @return The depth (1 for a node without dependencies)
+     */
+    private static int depth(Node node, Map<Node, Integer> depths) {
+        Integer known = depths.get(node);
+        if (known != null) {
+            return known;
+        }
+        // A node reached again through its own dependencies doesn't add to the chain
+        depths.put(node, 0);
+        int max = 0;
+        for (Node child : node.children) {
+            max = Math.max(max, depth(child, depths));
+        }
+        depths.put(node, max + 1);
+        return max + 1;
+    }
+
+    /**
+     * Get the node of the requested class
+     *
+     * @return The root node
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Get all nodes of the graph
+     *
+     * @return The nodes, in discovery order
+     */
+    public List<Node> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * Get the number of nodes of the graph (a singleton is counted once)
+     *
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Get the length of the longest dependency chain
+     *
+     * @return The depth (1 for a class without dependencies)
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the number of instances created by every get of the class: the new instances and prototype copies that
+     * are not dependencies of a singleton (or of a prototype template).
+     * Singletons not yet built are not counted, as they are built only once.
+     *
+     * @return The number of instances created per call
+     */
+    public int getConstructionsPerCall() {
+        return constructionsPerCall;
+    }
+
+    /**
+     * Get the classes of the singletons (and soft/weak/striped singletons) used by the graph
+     *
+     * @return The singleton classes
+     */
+    public Set<Class> getSingletons() {
+        return Collections.unmodifiableSet(singletons);
+    }
+
+    /**
+     * Check if every node of the graph can be built
+     *
+     * @return {@code false} if a class can't be instantiated or if the graph contains a cycle
+     */
+    public boolean isResolvable() {
+        for (Node node : nodes) {
+            if (!node.resolvable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Export the graph in the DOT format (Graphviz).
+     * Singletons are drawn as boxes, nodes that can't be built in red.
+     *
+     * @return The DOT graph
+     */
+    public String toDot() {
+        Map<Node, Integer> ids = ids();
+        StringBuilder builder = new StringBuilder("digraph \"").append(root.type.getName()).append("\" {\n");
+        for (Node node : nodes) {
+            builder.append("  n").append(ids.get(node))
+                    .append(" [label=\"").append(node.implementation.getName())
+                    .append("\\n").append(node.instantiation).append("\"");
+            if (!InjectionUnit.Instantiation.NewInstance.equals(node.instantiation)) {
+                builder.append(", shape=box");
+            }
+            if (!node.resolvable) {
+                builder.append(", color=red");
+            }
+            builder.append("];\n");
+        }
+        for (Node node : nodes) {
+            for (Node child : node.children) {
+                builder.append("  n").append(ids.get(node)).append(" -> n").append(ids.get(child)).append(";\n");
+            }
+        }
+        return builder.append("}\n").toString();
+    }
+
+    /**
+     * Export the graph and its statistics in JSON.
+     * Edges are pairs of node ids.
+     *
+     * @return The JSON document
+     */
+    public String toJson() {
+        Map<Node, Integer> ids = ids();
+        StringBuilder builder = new StringBuilder("{");
+        builder.append("\"root\":").append(ids.get(root))
+                .append(",\"nodeCount\":").append(getNodeCount())
+                .append(",\"depth\":").append(depth)
+                .append(",\"constructionsPerCall\":").append(constructionsPerCall)
+                .append(",\"resolvable\":").append(isResolvable())
+                .append(",\"singletons\":[");
+        String separator = "";
+        for (Class singleton : singletons) {
+            builder.append(separator).append(quote(singleton.getName()));
+            separator = ",";
+        }
+        builder.append("],\"nodes\":[");
+        separator = "";
+        for (Node node : nodes) {
+            builder.append(separator)
+                    .append("{\"id\":").append(ids.get(node))
+                    .append(",\"type\":").append(quote(node.type.getName()))
+                    .append(",\"implementation\":").append(quote(node.implementation.getName()))
+                    .append(",\"instantiation\":").append(quote(node.instantiation.name()))
+                    .append(",\"built\":").append(node.built)
+                    .append(",\"resolvable\":").append(node.resolvable)
+                    .append(",\"cycle\":").append(node.cycle)
+                    .append("}");
+            separator = ",";
+        }
+        builder.append("],\"edges\":[");
+        separator = "";
+        for (Node node : nodes) {
+            for (Node child : node.children) {
+                builder.append(separator).append("[").append(ids.get(node)).append(",").append(ids.get(child)).append("]");
+                separator = ",";
+            }
+        }
+        return builder.append("]}").toString();
+    }
+
+    /**
+     * Number the nodes
+     *
+     * @return The id of every node
+     */
+    private Map<Node, Integer> ids() {
+        Map<Node, Integer> ids = new IdentityHashMap<>();
+        for (Node node : nodes) {
+            ids.put(node, ids.size());
+        }
+        return ids;
+    }
+
+    /**
+     * Quote a JSON string
+     *
+     * @param value The string
+     * @return The quoted and escaped string
+     */
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Node class.
+     * A class in the dependency graph.
+     */
+    public static class Node {
+        /**
+         * The requested class
+         */
+        private final Class type;
+        /**
+         * The class that will be instantiated
+         */
+        private final Class implementation;
+        /**
+         * The dependencies (constructor parameters, then properties and setters)
+         */
+        private final List<Node> children = new ArrayList<>();
+        /**
+         * The instantiation type
+         */
+        private final InjectionUnit.Instantiation instantiation;
+        /**
+         * {@code true} if the instance is already built
+         */
+        private final boolean built;
+        /**
+         * {@code true} if the class can be instantiated
+         */
+        private boolean resolvable = true;
+        /**
+         * {@code true} if the class is already being resolved by one of its dependents
+         */
+        private boolean cycle = false;
+
+        /**
+         * Simple Constructor
+         *
+         * @param type           The requested class
+         * @param implementation The class that will be instantiated
+         * @param instantiation  The instantiation type
+         * @param built          {@code true} if the instance is already built
+         */
+        Node(Class type, Class implementation, InjectionUnit.Instantiation instantiation, boolean built) {
+            this.type = type;
+            this.implementation = implementation;
+            this.instantiation = instantiation;
+            this.built = built;
+        }
+
+        /**
+         * Get the requested class
+         *
+         * @return The class
+         */
+        public Class getType() {
+            return type;
+        }
+
+        /**
+         * Get the class that will be instantiated (the mapped implementation of the requested class)
+         *
+         * @return The class
+         */
+        public Class getImplementation() {
+            return implementation;
+        }
+
+        /**
+         * Get the instantiation type
+         *
+         * @return The instantiation type
+         */
+        public InjectionUnit.Instantiation getInstantiation() {
+            return instantiation;
+        }
+
+        /**
+         * Get the dependencies
+         *
+         * @return The dependency nodes
+         */
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Check if the instance (singleton or prototype template) is already built
+         *
+         * @return {@code true} if the instance is already built
+         */
+        public boolean isBuilt() {
+            return built;
+        }
+
+        /**
+         * Check if the class can be instantiated
+         *
+         * @return {@code false} if no constructor can be used, or if the node is a cycle
+         */
+        public boolean isResolvable() {
+            return resolvable;
+        }
+
+        /**
+         * Check if the class depends on itself (the resolution would never end)
+         *
+         * @return {@code true} if the class is already being resolved by one of its dependents
+         */
+        public boolean isCycle() {
+            return cycle;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.macfja.injector;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FailureLogger class.
+ * Log resolution failures, at most once per class and per interval.
+ * The first failure of a class is logged with its stack trace, the next ones only with the number of
+ * failures suppressed since the previous log.
+ *
+ * @author MacFJA
+ */
+class FailureLogger {
+    /**
+     * Minimal time between two logs of the same class, in nanoseconds
+     */
+    private volatile long interval = TimeUnit.MINUTES.toNanos(1);
+    /**
+     * Log state of each class
+     */
+    private final ConcurrentMap<Class, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * Change the minimal time between two logs of the same class
+     *
+     * @param duration The duration
+     * @param unit     The unit of the duration
+     */
+    void setInterval(long duration, TimeUnit unit) {
+        interval = unit.toNanos(duration);
+    }
+
+    /**
+     * Log a failure (if the class have not been logged recently)
+     *
+     * @param source The class that log
+     * @param type   The class that can't be created
+     * @param error  The failure
+     */
+    void log(Class source, Class type, ResolutionException error) {
+        State state = states.get(type);
+        if (state == null) {
+            State created = new State();
+            state = states.putIfAbsent(type, created);
+            if (state == null) {
+                created.lastLog.set(System.nanoTime());
+                LoggerFactory.getLogger(source).error(error.getMessage(), error.getCause());
+                return;
+            }
+        }
+
+        long now = System.nanoTime();
+        long last = state.lastLog.get();
+        if (now - last < interval || !state.lastLog.compareAndSet(last, now)) {
+            state.suppressed.incrementAndGet();
+            return;
+        }
+        int suppressed = state.suppressed.getAndSet(0);
+        LoggerFactory.getLogger(source).error(
+                error.getMessage() + " (" + suppressed + " similar failure(s) not logged): " + error.getCause()
+        );
+    }
+
+    /**
+     * Log state of a class
+     */
+    private static class State {
+        /**
+         * Time of the last log, in nanoseconds
+         */
+        private final AtomicLong lastLog = new AtomicLong();
+        /**
+         * Number of failures not logged since the last log
+         */
+        private final AtomicInteger suppressed = new AtomicInteger();
+    }
+}
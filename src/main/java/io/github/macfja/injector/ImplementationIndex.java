@@ -0,0 +1,113 @@
+package io.github.macfja.injector;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ImplementationIndex class.
+ * The index written at compile time by {@link ImplementationIndexProcessor}, read from all the class path resources.
+ * An interface with several implementations is ignored (it must be mapped explicitly).
+ *
+ * @author MacFJA
+ */
+class ImplementationIndex {
+    /**
+     * Resource with the implementations ("interface implementation" per line)
+     */
+    static final String IMPLEMENTATIONS = "META-INF/io.github.macfja.injector/implementations";
+    /**
+     * Resource with the singletons (one class per line)
+     */
+    static final String SINGLETONS = "META-INF/io.github.macfja.injector/singletons";
+
+    /**
+     * The only implementation of each interface/abstract class
+     */
+    private final Map<String, String> implementations = new HashMap<>();
+    /**
+     * The singleton classes
+     */
+    private final Set<String> singletons = new HashSet<>();
+
+    /**
+     * Read the index
+     *
+     * @param loader The class loader to read the resources from
+     */
+    ImplementationIndex(ClassLoader loader) {
+        Set<String> ambiguous = new HashSet<>();
+        for (String line : read(loader, IMPLEMENTATIONS)) {
+            String[] parts = line.split(" ");
+            if (parts.length != 2) {
+                continue;
+            }
+            String previous = implementations.put(parts[0], parts[1]);
+            if (previous != null && !previous.equals(parts[1])) {
+                ambiguous.add(parts[0]);
+            }
+        }
+        implementations.keySet().removeAll(ambiguous);
+        singletons.addAll(read(loader, SINGLETONS));
+    }
+
+    /**
+     * Read all lines of all the resources with a name
+     *
+     * @param loader The class loader to read the resources from
+     * @param name   The resource name
+     * @return The non empty lines
+     */
+    private static Set<String> read(ClassLoader loader, String name) {
+        Set<String> lines = new HashSet<>();
+        try {
+            Enumeration<URL> resources = loader.getResources(name);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8)
+                )) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty()) {
+                            lines.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LoggerFactory.getLogger(ImplementationIndex.class).warn("Unable to read the index " + name, e);
+        }
+        return lines;
+    }
+
+    /**
+     * Get the only implementation of an interface/abstract class
+     *
+     * @param name The binary name of the interface/abstract class
+     * @return The binary name of the implementation, {@code null} if there is none or several
+     */
+    String getImplementation(String name) {
+        return implementations.get(name);
+    }
+
+    /**
+     * Check if a class have the {@code @Singleton} annotation
+     *
+     * @param name The binary name of the class
+     * @return {@code true} if the class is a singleton
+     */
+    boolean isSingleton(String name) {
+        return singletons.contains(name);
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.macfja.injector;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.inject.Singleton;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ImplementationIndexProcessor class.
+ * Annotation processor that write, at compile time, the index used by the auto-binding
+ * (see {@link Injector#setAutoBinding(Boolean)}): the implementations of every interface and abstract class,
+ * and the classes with the {@code @javax.inject.Singleton} annotation.
+ * <p>
+ * The processor is not registered automatically, it must be declared in the compiler configuration.
+ * The option {@code injector.packages} (comma separated list of packages) limits the indexed classes.
+ *
+ * @author MacFJA
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ImplementationIndexProcessor.PACKAGES_OPTION)
+public class ImplementationIndexProcessor extends AbstractProcessor {
+    /**
+     * Name of the option with the list of packages to index
+     */
+    public static final String PACKAGES_OPTION = "injector.packages";
+
+    /**
+     * Implementations of each interface/abstract class (binary names)
+     */
+    private final Map<String, Set<String>> implementations = new TreeMap<>();
+    /**
+     * Classes with the {@code @Singleton} annotation (binary names)
+     */
+    private final Set<String> singletons = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            scan(element);
+        }
+        return false;
+    }
+
+    /**
+     * Index a class and its nested classes
+     *
+     * @param element The element to index
+     */
+    private void scan(Element element) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        if (isInPackages(type)) {
+            index(type);
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            scan(enclosed);
+        }
+    }
+
+    /**
+     * Index a class
+     *
+     * @param type The class to index
+     */
+    private void index(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (type.getKind() != ElementKind.CLASS || modifiers.contains(Modifier.ABSTRACT)) {
+            return;
+        }
+        if (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC)) {
+            // Inner classes need an outer instance
+            return;
+        }
+        String name = binaryName(type);
+        if (type.getAnnotation(Singleton.class) != null) {
+            singletons.add(name);
+        }
+        Set<TypeElement> parents = new LinkedHashSet<>();
+        collectParents(type.asType(), parents);
+        for (TypeElement parent : parents) {
+            boolean isAbstract = parent.getKind() == ElementKind.INTERFACE
+                    || parent.getModifiers().contains(Modifier.ABSTRACT);
+            if (!isAbstract || !isInPackages(parent)) {
+                continue;
+            }
+            String parentName = binaryName(parent);
+            if (!implementations.containsKey(parentName)) {
+                implementations.put(parentName, new TreeSet<String>());
+            }
+            implementations.get(parentName).add(name);
+        }
+    }
+
+    /**
+     * Collect all parent classes and interfaces of a type
+     *
+     * @param type    The type
+     * @param parents The set to fill
+     */
+    private void collectParents(TypeMirror type, Set<TypeElement> parents) {
+        for (TypeMirror parent : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (parent instanceof DeclaredType) {
+                Element element = ((DeclaredType) parent).asElement();
+                if (element instanceof TypeElement && parents.add((TypeElement) element)) {
+                    collectParents(parent, parents);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if a class is in the indexed packages
+     *
+     * @param type The class
+     * @return {@code true} if the class must be indexed
+     */
+    private boolean isInPackages(TypeElement type) {
+        String option = processingEnv.getOptions().get(PACKAGES_OPTION);
+        if (option == null || option.trim().isEmpty()) {
+            return true;
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        for (String indexed : Arrays.asList(option.split(","))) {
+            if (packageName.startsWith(indexed.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the binary name of a class (the name used by {@code Class.forName})
+     *
+     * @param type The class
+     * @return The binary name
+     */
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    /**
+     * Write the index files
+     */
+    private void write() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", ImplementationIndex.IMPLEMENTATIONS
+            );
+            try (Writer writer = file.openWriter()) {
+                for (Map.Entry<String, Set<String>> entry : implementations.entrySet()) {
+                    for (String implementation : entry.getValue()) {
+                        writer.write(entry.getKey() + " " + implementation + "\n");
+                    }
+                }
+            }
+            file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", ImplementationIndex.SINGLETONS
+            );
+            try (Writer writer = file.openWriter()) {
+                write(writer, singletons);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Unable to write the implementation index: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Write one class name per line
+     *
+     * @param writer The writer
+     * @param names  The class names
+     * @throws IOException if the writing failed
+     */
+    private static void write(Writer writer, Collection<String> names) throws IOException {
+        for (String name : names) {
+            writer.write(name + "\n");
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package io.github.macfja.injector;
 
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * InjectionUnit class.
@@ -11,6 +21,10 @@ import java.util.ArrayList;
  * @author MacFJA
  */
 public class InjectionUnit implements Cloneable {
+    /**
+     * Number of instances of a striped unit (the number of processors, rounded up to a power of two)
+     */
+    private static final int STRIPE_COUNT = stripeCount();
     /**
      * Class to use when requesting an instance
      */
@@ -20,9 +34,51 @@ public class InjectionUnit implements Cloneable {
      */
     private final Instantiation type;
     /**
-     * The singleton instance (if the Instantiation is NewInstance)
+     * The singleton instance (if the Instantiation is Singleton)
+     */
+    private volatile Object singleton;
+    /**
+     * The soft/weak reference to the instance (if the Instantiation is SoftSingleton or WeakSingleton)
+     */
+    private volatile Reference<Object> reference;
+    /**
+     * Number of time the referenced instance have been rebuilt after being cleared by the GC
+     */
+    private volatile int rebuildCount = 0;
+    /**
+     * The configured template (if the Instantiation is Prototype)
+     */
+    private volatile Object prototype;
+    /**
+     * The public {@code clone()} method used to copy the template (if any)
+     */
+    private Method copyMethod;
+    /**
+     * The copy constructor used to copy the template (if there is no public {@code clone()} method)
+     */
+    private Constructor copyConstructor;
+    /**
+     * Lock of the singleton construction
      */
-    private Object singleton;
+    private ReentrantLock lock = new ReentrantLock();
+    /**
+     * The instances (if the Instantiation is Striped)
+     */
+    private AtomicReferenceArray<Object> stripes;
+    /**
+     * Lock of the construction of each stripe (if the Instantiation is Striped)
+     */
+    private ReentrantLock[] stripeLocks;
+    /**
+     * Number of generic constructions since the last link.
+     * Racy on purpose: concurrent constructions increment it without synchronization and may lose updates,
+     * which only delays the link of the plan
+     */
+    private int constructions = 0;
+    /**
+     * The pre-linked construction of the instances ({@code null} until the unit is hot)
+     */
+    private volatile ConstructionPlan plan;
 
     /**
      * Simple Constructor
@@ -33,6 +89,13 @@ public class InjectionUnit implements Cloneable {
     public InjectionUnit(Class toInject, Instantiation type) {
         this.toInject = toInject;
         this.type = type;
+        if (Instantiation.Striped.equals(type)) {
+            stripes = new AtomicReferenceArray<>(STRIPE_COUNT);
+            stripeLocks = newStripeLocks();
+        } else {
+            stripes = null;
+            stripeLocks = null;
+        }
     }
 
     /**
@@ -44,6 +107,35 @@ public class InjectionUnit implements Cloneable {
         this.toInject = singletonInstance.getClass();
         this.singleton = singletonInstance;
         this.type = Instantiation.Singleton;
+        this.stripes = null;
+        this.stripeLocks = null;
+    }
+
+    /**
+     * Compute the number of instances of a striped unit
+     *
+     * @return The smallest power of two greater or equal to the number of processors
+     */
+    private static int stripeCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = 1;
+        while (count < processors) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    /**
+     * Create the locks of the construction of the stripes
+     *
+     * @return One lock per stripe
+     */
+    private static ReentrantLock[] newStripeLocks() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPE_COUNT];
+        for (int index = 0; index < STRIPE_COUNT; index++) {
+            locks[index] = new ReentrantLock();
+        }
+        return locks;
     }
 
     /**
@@ -54,12 +146,24 @@ public class InjectionUnit implements Cloneable {
      * @return {@code true} if a constructor can be use
      */
     public static Boolean isInstantiable(Class toInject, Injector injector) {
-        for (Constructor constructor : toInject.getConstructors()) {
-            if (isConstructorInjectable(constructor, injector)) {
-                return true;
+        return findConstructor(ClassMetadata.of(toInject), injector) >= 0;
+    }
+
+    /**
+     * Find the first public constructor that can be used
+     *
+     * @param metadata The information of the class
+     * @param injector The class injector
+     * @return The index of the constructor, {@code -1} if no constructor can be used
+     */
+    static int findConstructor(ClassMetadata metadata, Injector injector) {
+        Constructor[] constructors = metadata.getConstructors();
+        for (int index = 0; index < constructors.length; index++) {
+            if (isInjectable(metadata.getConstructorParameters(index), metadata.getConstructorQualifiers(index), injector)) {
+                return index;
             }
         }
-        return false;
+        return -1;
     }
 
     /**
@@ -70,8 +174,20 @@ public class InjectionUnit implements Cloneable {
      * @return {@code true} if the constructor can be use
      */
     public static Boolean isConstructorInjectable(Constructor constructor, Injector injector) {
-        for (Class variable : constructor.getParameterTypes()) {
-            if (!injector.isInjectable(variable)) {
+        return isInjectable(ClassMetadata.parameterTypes(constructor), ClassMetadata.qualifiers(constructor), injector);
+    }
+
+    /**
+     * Check if all parameters can be injected
+     *
+     * @param parameters The parameters types
+     * @param qualifiers The parameters qualifiers ({@code null} for unqualified parameters)
+     * @param injector   The class injector
+     * @return {@code true} if all parameters can be injected
+     */
+    private static boolean isInjectable(Type[] parameters, Key[] qualifiers, Injector injector) {
+        for (int index = 0; index < parameters.length; index++) {
+            if (!injector.isInjectable(parameters[index], qualifiers[index])) {
                 return false;
             }
         }
@@ -89,19 +205,258 @@ public class InjectionUnit implements Cloneable {
      *                                   an abstract class.
      */
     public Object get(Injector parent) throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Object instance;
         if (Instantiation.Singleton.equals(type)) {
-            if (singleton == null) {
-                singleton = build(parent);
+            instance = getSingleton(parent);
+        } else if (Instantiation.SoftSingleton.equals(type) || Instantiation.WeakSingleton.equals(type)) {
+            instance = getReferenced(parent);
+        } else if (Instantiation.Prototype.equals(type)) {
+            instance = getCopy(parent);
+        } else if (Instantiation.Striped.equals(type)) {
+            instance = getStriped(parent);
+        } else {
+            instance = build(parent, false);
+        }
+        Deadline deadline = parent.getDeadline();
+        if (deadline != null) {
+            // Checked once the instance is complete (and published if it's a singleton)
+            deadline.obtained(toInject);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the singleton, build it if needed.
+     * Only one thread can build the singleton, the instance is published once fully injected.
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The singleton
+     * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
+     *                                   and the underlying constructor is inaccessible.
+     * @throws InvocationTargetException if the underlying constructor throws an exception.
+     * @throws InstantiationException    if the class that declares the underlying constructor represents
+     *                                   an abstract class.
+     */
+    private Object getSingleton(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Object instance = singleton;
+        if (instance == null) {
+            lock(lock, parent);
+            try {
+                instance = singleton;
+                if (instance == null) {
+                    instance = build(parent, true);
+                    singleton = instance;
+                    return instance;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        parent.getShutdownTracker().used(instance);
+        return instance;
+    }
+
+    /**
+     * Get the instance of the stripe of the current thread, build it if needed.
+     * Only one thread can build an instance, the instance is published once fully injected.
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The instance of the stripe
+     * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
+     *                                   and the underlying constructor is inaccessible.
+     * @throws InvocationTargetException if the underlying constructor throws an exception.
+     * @throws InstantiationException    if the class that declares the underlying constructor represents
+     *                                   an abstract class.
+     */
+    private Object getStriped(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        int index = stripeIndex();
+        Object instance = stripes.get(index);
+        if (instance == null) {
+            ReentrantLock stripeLock = stripeLocks[index];
+            lock(stripeLock, parent);
+            try {
+                instance = stripes.get(index);
+                if (instance == null) {
+                    instance = build(parent, true);
+                    stripes.set(index, instance);
+                    return instance;
+                }
+            } finally {
+                stripeLock.unlock();
+            }
+        }
+        parent.getShutdownTracker().used(instance);
+        return instance;
+    }
+
+    /**
+     * Get the stripe of the current thread
+     *
+     * @return The index of the stripe
+     */
+    private static int stripeIndex() {
+        // Thread ids are sequential: the threads of a pool are spread over all stripes
+        return (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+    }
+
+    /**
+     * Get all instances already built (only relevant for Striped), to aggregate their state
+     *
+     * @return The instances, an empty list if the instantiation type is not Striped
+     */
+    public List<Object> getStripes() {
+        if (stripes == null) {
+            return Collections.emptyList();
+        }
+        List<Object> instances = new ArrayList<>();
+        for (int index = 0; index < stripes.length(); index++) {
+            Object instance = stripes.get(index);
+            if (instance != null) {
+                instances.add(instance);
             }
-            return singleton;
         }
-        return build(parent);
+        return Collections.unmodifiableList(instances);
+    }
+
+    /**
+     * Get the instance hold by the soft/weak reference, (re)build it if needed.
+     * Only one thread can rebuild the instance.
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The instance
+     * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
+     *                                   and the underlying constructor is inaccessible.
+     * @throws InvocationTargetException if the underlying constructor throws an exception.
+     * @throws InstantiationException    if the class that declares the underlying constructor represents
+     *                                   an abstract class.
+     */
+    private Object getReferenced(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Reference<Object> current = reference;
+        Object instance = current == null ? null : current.get();
+        if (instance != null) {
+            return instance;
+        }
+        lock(lock, parent);
+        try {
+            current = reference;
+            instance = current == null ? null : current.get();
+            if (instance == null) {
+                instance = build(parent, false);
+                if (current != null) {
+                    rebuildCount++;
+                }
+                if (Instantiation.SoftSingleton.equals(type)) {
+                    reference = new SoftReference<>(instance);
+                } else {
+                    reference = new WeakReference<>(instance);
+                }
+            }
+            return instance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a copy of the template, build the template if needed.
+     * The copy is done with the public {@code clone()} method (if the class is {@code Cloneable}),
+     * or with the copy constructor: neither constructor resolution nor member injection are done for a copy.
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return A copy of the template
+     * @throws IllegalAccessException    if the copy method or constructor is inaccessible.
+     * @throws InvocationTargetException if the constructor, the copy method or the copy constructor throws
+     *                                   an exception.
+     * @throws InstantiationException    if the class can't be instantiated or can't be copied.
+     */
+    private Object getCopy(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Object template = prototype;
+        if (template == null) {
+            lock(lock, parent);
+            try {
+                template = prototype;
+                if (template == null) {
+                    template = build(parent, false);
+                    linkCopier(template.getClass());
+                    prototype = template;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (copyMethod != null) {
+            return copyMethod.invoke(template);
+        }
+        return copyConstructor.newInstance(template);
+    }
+
+    /**
+     * Find how to copy the template
+     *
+     * @param templateClass The class of the template
+     * @throws InstantiationException if the class have neither a public {@code clone()} method nor a copy constructor
+     */
+    private void linkCopier(Class templateClass) throws InstantiationException {
+        if (Cloneable.class.isAssignableFrom(templateClass)) {
+            try {
+                copyMethod = templateClass.getMethod("clone");
+                return;
+            } catch (NoSuchMethodException e) {
+                // Try the copy constructor
+            }
+        }
+        try {
+            copyConstructor = templateClass.getConstructor(templateClass);
+        } catch (NoSuchMethodException e) {
+            throw new InstantiationException(
+                    templateClass.getName() + " have neither a public clone() method nor a public copy constructor"
+            );
+        }
+    }
+
+    /**
+     * Acquire a construction lock.
+     * If the resolution have a deadline, wait at most until the deadline.
+     *
+     * @param target The lock to acquire
+     * @param parent The parent injector (which initiate the build)
+     * @throws ResolutionTimeoutException if the deadline is reached before the lock is acquired
+     */
+    private void lock(ReentrantLock target, Injector parent) {
+        Deadline deadline = parent.getDeadline();
+        if (deadline == null) {
+            target.lock();
+            return;
+        }
+        try {
+            if (target.tryLock(deadline.remaining(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw deadline.waiting(toInject);
+    }
+
+    /**
+     * Get the number of time the instance have been rebuilt after the GC cleared it.
+     * (Only relevant for SoftSingleton and WeakSingleton)
+     *
+     * @return The number of rebuild
+     */
+    public int getRebuildCount() {
+        return rebuildCount;
     }
 
     /**
      * Create an instance of toInject class
      *
      * @param parent The parent injector (which initiate the build)
+     * @param owned  {@code true} if the instance is a singleton owned (and closed) by the injector
      * @return The new instance
      * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
      *                                   and the underlying constructor is inaccessible.
@@ -109,22 +464,107 @@ public class InjectionUnit implements Cloneable {
      *                                   represents an abstract class.
      * @throws InvocationTargetException if the underlying constructor throws an exception.
      */
-    private Object build(Injector parent) throws IllegalAccessException, InstantiationException, InvocationTargetException {
+    private Object build(Injector parent, boolean owned)
+            throws IllegalAccessException, InstantiationException, InvocationTargetException {
+        ShutdownTracker tracker = parent.getShutdownTracker();
+        Deadline deadline = parent.getDeadline();
         Object instance = null;
+        if (deadline != null) {
+            deadline.enter(toInject);
+        }
+        tracker.enter();
+        try {
+            instance = construct(parent);
+        } finally {
+            tracker.exit(instance, owned);
+            if (deadline != null) {
+                deadline.exit();
+            }
+        }
+        return instance;
+    }
 
-        if (toInject.getConstructors().length == 0) {
+    /**
+     * Create an instance of toInject class and inject its members
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The new instance
+     * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
+     *                                   and the underlying constructor is inaccessible.
+     * @throws InstantiationException    if the class that declares the underlying constructor
+     *                                   represents an abstract class.
+     * @throws InvocationTargetException if the underlying constructor throws an exception.
+     */
+    private Object construct(Injector parent)
+            throws IllegalAccessException, InstantiationException, InvocationTargetException {
+        ResolutionTracer tracer = parent.getTracer();
+        int threshold = parent.getHotThreshold();
+        if (tracer == null && threshold > 0) {
+            ConstructionPlan linked = plan;
+            ConstructionPlan current = linked == null ? null : linked.validFor(parent);
+            if (current == null && ++constructions >= threshold) {
+                constructions = 0;
+                current = parent.linkPlan(toInject);
+            }
+            if (current != null && current != linked) {
+                plan = current;
+            }
+            if (current != null && current.isLinked()) {
+                return current.construct(parent);
+            }
+        }
+        ResolutionTrace trace = tracer == null ? null : tracer.enter(toInject);
+        try {
+            return construct(parent, trace);
+        } finally {
+            if (trace != null) {
+                tracer.exit(trace);
+            }
+        }
+    }
+
+    /**
+     * Create an instance of toInject class and inject its members
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @param trace  The resolution trace to fill ({@code null} if the tracing is disabled)
+     * @return The new instance
+     * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
+     *                                   and the underlying constructor is inaccessible.
+     * @throws InstantiationException    if the class that declares the underlying constructor
+     *                                   represents an abstract class.
+     * @throws InvocationTargetException if the underlying constructor throws an exception.
+     */
+    private Object construct(Injector parent, ResolutionTrace trace)
+            throws IllegalAccessException, InstantiationException, InvocationTargetException {
+        Object instance;
+        long time = trace == null ? 0 : System.nanoTime();
+
+        ClassMetadata metadata = ClassMetadata.of(toInject);
+        if (metadata.getConstructors().length == 0) {
             instance = toInject.newInstance();
-        } else {
-            for (Constructor constructor : toInject.getConstructors()) {
-                if (isConstructorInjectable(constructor, parent)) {
-                    instance = runConstructor(constructor, parent);
-                    break;
-                }
+            if (trace != null) {
+                time = trace.construction(null, time);
             }
+        } else {
+            int selected = findConstructor(metadata, parent);
 
-            if (instance == null) {
+            if (selected < 0) {
                 throw new InstantiationException();
             }
+            if (trace != null) {
+                trace.reflection(time);
+            }
+            instance = runConstructor(
+                    metadata.getConstructors()[selected],
+                    metadata.getConstructorParameters(selected),
+                    metadata.getConstructorQualifiers(selected),
+                    parent,
+                    trace
+            );
+            if (trace != null) {
+                time = System.nanoTime();
+            }
         }
 
         if (parent.getInjectProperties()) {
@@ -133,6 +573,12 @@ public class InjectionUnit implements Cloneable {
         if (parent.getInjectSetters()) {
             parent.injectIntoSetters(instance);
         }
+        for (Method method : metadata.getPostConstructMethods()) {
+            method.invoke(instance);
+        }
+        if (trace != null) {
+            trace.injection(time);
+        }
         return instance;
     }
 
@@ -140,7 +586,10 @@ public class InjectionUnit implements Cloneable {
      * Inject class and execute constructor
      *
      * @param constructor The constructor to execute
+     * @param parameters  The parameters types of the constructor
+     * @param qualifiers  The parameters qualifiers of the constructor ({@code null} for unqualified parameters)
      * @param parent      The parent injector (which initiate the build)
+     * @param trace       The resolution trace to fill ({@code null} if the tracing is disabled)
      * @return A new instance created with the constructor
      * @throws IllegalAccessException    if this {@code Constructor} object is enforcing Java language access control
      *                                   and the underlying constructor is inaccessible.
@@ -148,14 +597,72 @@ public class InjectionUnit implements Cloneable {
      * @throws InstantiationException    if the class that declares the underlying constructor
      *                                   represents an abstract class.
      */
-    private Object runConstructor(Constructor constructor, Injector parent)
+    private Object runConstructor(Constructor constructor, Type[] parameters, Key[] qualifiers, Injector parent,
+                                  ResolutionTrace trace)
             throws IllegalAccessException, InvocationTargetException, InstantiationException {
-        ArrayList<Object> objects = new ArrayList<>();
-        for (Class param : constructor.getParameterTypes()) {
-            objects.add(parent.get(param));
+        Object[] arguments = new Object[parameters.length];
+        for (int index = 0; index < parameters.length; index++) {
+            arguments[index] = parent.resolve(parameters[index], qualifiers[index]);
+        }
+        long time = trace == null ? 0 : System.nanoTime();
+        Object instance = constructor.newInstance(arguments);
+        if (trace != null) {
+            trace.construction(constructor, time);
         }
-        return constructor.newInstance(objects.toArray());
+        return instance;
+    }
+
+    /**
+     * Get the class that will be instantiated
+     *
+     * @return The class
+     */
+    Class getToInject() {
+        return toInject;
+    }
+
+    /**
+     * Get the type of instance
+     *
+     * @return The instantiation type
+     */
+    Instantiation getType() {
+        return type;
+    }
+
+    /**
+     * Check if the instance (or the template) is already built
+     *
+     * @return {@code true} if the next get will not build anything on the current thread (always {@code false} for
+     * a new instance)
+     */
+    boolean isBuilt() {
+        if (singleton != null || prototype != null) {
+            return true;
+        }
+        if (stripes != null) {
+            return stripes.get(stripeIndex()) != null;
+        }
+        Reference<Object> current = reference;
+        return current != null && current.get() != null;
+    }
 
+    /**
+     * Get the instance shared with the current thread, if it's already built
+     *
+     * @return The singleton (or the instance of the stripe of the current thread, or the referenced instance),
+     * {@code null} if it's not built or if the instances are not shared
+     */
+    Object getBuilt() {
+        Object instance = singleton;
+        if (instance != null) {
+            return instance;
+        }
+        if (stripes != null) {
+            return stripes.get(stripeIndex());
+        }
+        Reference<Object> current = reference;
+        return current == null ? null : current.get();
     }
 
     /**
@@ -173,15 +680,43 @@ public class InjectionUnit implements Cloneable {
      */
     public enum Instantiation {
         Singleton,
-        NewInstance
+        NewInstance,
+        /**
+         * Singleton hold by a soft reference, rebuilt when the GC clear it (memory pressure)
+         */
+        SoftSingleton,
+        /**
+         * Singleton hold by a weak reference, rebuilt when the GC clear it (no more strong reference)
+         */
+        WeakSingleton,
+        /**
+         * A template is built (and injected) once, every request get a copy of it
+         * (with the public {@code clone()} method, or with the copy constructor)
+         */
+        Prototype,
+        /**
+         * A small fixed number of instances (one per processor), each thread always get the instance of its stripe.
+         * For contended mutable objects (counters, generators, buffers): all instances are available with
+         * {@link #getStripes()} to aggregate their state
+         */
+        Striped
     }
 
     @Override
     public InjectionUnit clone() throws CloneNotSupportedException {
         InjectionUnit clone = (InjectionUnit) super.clone();
+        clone.lock = new ReentrantLock();
         if (Instantiation.Singleton.equals(type)) {
             clone.singleton = singleton;
         }
+        if (stripes != null) {
+            // Same as a singleton: the instances already built are kept, the next ones are built for the clone only
+            clone.stripes = new AtomicReferenceArray<>(STRIPE_COUNT);
+            for (int index = 0; index < STRIPE_COUNT; index++) {
+                clone.stripes.set(index, stripes.get(index));
+            }
+            clone.stripeLocks = newStripeLocks();
+        }
         return clone;
     }
 }
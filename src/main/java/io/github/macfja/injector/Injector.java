@@ -3,15 +3,30 @@ package io.github.macfja.injector;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Injector class.
@@ -19,11 +34,50 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author MacFJA
  */
-public class Injector implements Cloneable {
+public class Injector implements Cloneable, AutoCloseable {
     /**
-     * Mapping of class that have a particular injection
+     * Default maximum time (in seconds) to close all singletons
      */
-    private final Map<Class, InjectionUnit> mapping = new ConcurrentHashMap<>();
+    private static final long DEFAULT_CLOSE_TIMEOUT = 30;
+    /**
+     * Generator of the configuration revisions
+     */
+    private static final AtomicInteger REVISIONS = new AtomicInteger();
+    /**
+     * The current mapping snapshot (replaced, never modified, on every change)
+     */
+    private volatile Bindings bindings = Bindings.EMPTY;
+    /**
+     * Lock of the mapping writers
+     */
+    private Object writeLock = new Object();
+    /**
+     * The mapping snapshot used by the resolution in progress on the current thread
+     * (a mutable holder, so a resolution doesn't add and remove a thread local value)
+     */
+    private ThreadLocal<Bindings[]> pinned = newPinned();
+    /**
+     * The classes (and qualified classes) which injection rules are read by the cached decision in progress
+     * on the current thread
+     */
+    private ThreadLocal<Set<Object>> dependencyRecorder = new ThreadLocal<>();
+    /**
+     * The deadline of the resolution in progress on the current thread (if any)
+     */
+    private ThreadLocal<Deadline> deadlines = new ThreadLocal<>();
+    /**
+     * Methods chosen for method name injection, by class and method name
+     * (checked against the mapping snapshot of each call, removed when the mapping of a class they depend on change)
+     */
+    private ConcurrentMap<Class, ConcurrentMap<String, MethodInvoker>> invokers = new ConcurrentHashMap<>();
+    /**
+     * Classes that can't be created with the current mapping (cleared when the mapping change)
+     */
+    private ConcurrentMap<Class, ResolutionException> failures = new ConcurrentHashMap<>();
+    /**
+     * Logger of the resolution failures (shared with clones)
+     */
+    private FailureLogger failureLogger = new FailureLogger();
     /**
      * List of package name that can be injected
      */
@@ -36,6 +90,52 @@ public class Injector implements Cloneable {
      * Should the injector inject class with setters
      */
     private Boolean injectSetters = true;
+    /**
+     * Should the injector throw an exception when an instance can't be created
+     */
+    private Boolean strict = false;
+    /**
+     * Singletons built by the injector (shared with clones, as they share the injection units)
+     */
+    private ShutdownTracker shutdownTracker = new ShutdownTracker();
+    /**
+     * Recorder of the resolution trees ({@code null} when the tracing is disabled)
+     */
+    private ResolutionTracer tracer;
+    /**
+     * The configuration values mapped in the injector ({@code null} if none)
+     */
+    private ConfigSnapshot config;
+    /**
+     * Number of constructions after which a binding use a pre-linked construction plan ({@code 0} to disable)
+     */
+    private int hotThreshold = 0;
+    /**
+     * Revision of the configuration (packages, injection types, auto-binding), to invalidate the construction plans.
+     * Unique across injectors, so a clone share the plans until its configuration change
+     */
+    private volatile int revision = REVISIONS.incrementAndGet();
+    /**
+     * Should the injector use the build-time implementation index for the classes without mapping
+     */
+    private Boolean autoBinding = false;
+    /**
+     * The implementation index (loaded on the first use)
+     */
+    private volatile ImplementationIndex index;
+    /**
+     * Injection units created from the implementation index, by requested class (shared with clones)
+     */
+    private UnitCache autoUnits = new UnitCache();
+    /**
+     * Injection units of the classes without mapping, by requested class (shared with clones, kept so their
+     * construction plans are reused)
+     */
+    private UnitCache implicitUnits = new UnitCache();
+    /**
+     * Marker of the classes that are not in the implementation index
+     */
+    private static final InjectionUnit NOT_INDEXED = new InjectionUnit(Object.class, InjectionUnit.Instantiation.NewInstance);
 
     /**
      * Create an injector
@@ -62,7 +162,7 @@ public class Injector implements Cloneable {
      * @param instantiationType The Type of instantiation
      */
     public void addMapping(Class forClass, InjectionUnit.Instantiation instantiationType) {
-        mapping.put(forClass, new InjectionUnit(forClass, instantiationType));
+        apply(new BindingBatch().addMapping(forClass, instantiationType));
     }
 
     /**
@@ -72,7 +172,33 @@ public class Injector implements Cloneable {
      * @param injection The injection rule
      */
     public void addMapping(Class forClass, InjectionUnit injection) {
-        mapping.put(forClass, injection);
+        apply(new BindingBatch().addMapping(forClass, injection));
+    }
+
+    /**
+     * Add an injection rule of a qualified class: used for the injection points (constructor parameters, properties
+     * and setters) with the qualifier annotation
+     *
+     * @param forClass  The class to inject
+     * @param qualifier The qualifier ({@code @Named}, see {@link Names#named(String)}, or any annotation with
+     *                  {@code @javax.inject.Qualifier})
+     * @param injection The injection rule
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     */
+    public void addMapping(Class forClass, Annotation qualifier, InjectionUnit injection) {
+        apply(new BindingBatch().addMapping(forClass, qualifier, injection));
+    }
+
+    /**
+     * Add an injection rule of a class qualified by an annotation without attribute
+     *
+     * @param forClass      The class to inject
+     * @param qualifierType The qualifier (an annotation with {@code @javax.inject.Qualifier})
+     * @param injection     The injection rule
+     * @throws IllegalArgumentException if the annotation is not a qualifier, or has attributes
+     */
+    public void addMapping(Class forClass, Class<? extends Annotation> qualifierType, InjectionUnit injection) {
+        apply(new BindingBatch().addMapping(forClass, qualifierType, injection));
     }
 
     /**
@@ -81,7 +207,115 @@ public class Injector implements Cloneable {
      * @param singleton The singleton to use
      */
     public void addMapping(Object singleton) {
-        mapping.put(singleton.getClass(), new InjectionUnit(singleton));
+        apply(new BindingBatch().addMapping(singleton));
+    }
+
+    /**
+     * Add a contribution to the multibinding of a class.
+     * All contributions of a class can be injected as a {@code List}, a {@code Set}, a {@code Collection},
+     * an {@code Iterable} or an array of the class.
+     *
+     * @param forClass     The class to inject
+     * @param contribution The injection rule of the contribution
+     */
+    public void addMultiMapping(Class forClass, InjectionUnit contribution) {
+        apply(new BindingBatch().addMultiMapping(forClass, contribution));
+    }
+
+    /**
+     * Apply a list of mapping changes atomically.
+     * The resolutions in progress continue with the previous mapping, the new ones use the new mapping:
+     * a resolution never sees a mix of both. Readers are never blocked.
+     * Only the cached decisions that depend on the changed classes are invalidated.
+     * (Singletons already built are not rebuilt)
+     *
+     * @param batch The changes to apply
+     */
+    public void apply(BindingBatch batch) {
+        synchronized (writeLock) {
+            bindings = batch.applyTo(bindings);
+        }
+        failures.clear();
+        invalidate(batch.getChangedClasses());
+    }
+
+    /**
+     * Remove the cached decisions that depend on the injection rule of some classes.
+     * Only free the memory: a cached decision is checked against the snapshot of the call that use it,
+     * so a call that started before the removal doesn't use an outdated decision.
+     *
+     * @param changedClasses The changed classes
+     */
+    private void invalidate(Set<Class> changedClasses) {
+        for (ConcurrentMap<String, MethodInvoker> classInvokers : invokers.values()) {
+            for (Map.Entry<String, MethodInvoker> entry : classInvokers.entrySet()) {
+                if (entry.getValue().dependsOn(changedClasses)) {
+                    classInvokers.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the mapping snapshot to use on the current thread
+     *
+     * @return The snapshot of the resolution in progress, or the current one
+     */
+    Bindings current() {
+        Bindings snapshot = pinned.get()[0];
+        return snapshot == null ? bindings : snapshot;
+    }
+
+    /**
+     * Create the holder of the mapping snapshot used by the resolution in progress on each thread
+     *
+     * @return The thread local holder
+     */
+    private static ThreadLocal<Bindings[]> newPinned() {
+        return new ThreadLocal<Bindings[]>() {
+            @Override
+            protected Bindings[] initialValue() {
+                return new Bindings[1];
+            }
+        };
+    }
+
+    /**
+     * Use the current mapping snapshot for the whole resolution started on the current thread
+     *
+     * @return {@code true} if the resolution start with this call (the snapshot must be released with
+     * {@link #unpin(boolean)})
+     */
+    private boolean pin() {
+        Bindings[] holder = pinned.get();
+        if (holder[0] != null) {
+            return false;
+        }
+        holder[0] = bindings;
+        return true;
+    }
+
+    /**
+     * Release the mapping snapshot at the end of a resolution
+     *
+     * @param root The result of {@link #pin()}
+     */
+    private void unpin(boolean root) {
+        if (root) {
+            pinned.get()[0] = null;
+        }
+    }
+
+    /**
+     * Record that a cached decision in progress read the injection rule of a class
+     *
+     * @param dependency The class (or the qualified class)
+     */
+    private void recordDependency(Object dependency) {
+        Set<Object> recorder = dependencyRecorder.get();
+        if (recorder != null) {
+            recorder.add(dependency);
+        }
     }
 
     /**
@@ -91,6 +325,38 @@ public class Injector implements Cloneable {
      */
     public void addWorkingPackage(String packageName) {
         workingPackages.add(packageName);
+        revision = REVISIONS.incrementAndGet();
+        invokers.clear();
+        failures.clear();
+    }
+
+    /**
+     * Check if a type can be injected.
+     * Same as {@link #isInjectable(Class)}, but also accept collections and arrays of a multibinding class.
+     *
+     * @param type The type to check
+     * @return {@code true} is the type injectable
+     */
+    public boolean isInjectable(Type type) {
+        if (multiBindingElement(type) != null) {
+            return true;
+        }
+        return isInjectable(erase(type));
+    }
+
+    /**
+     * Check if an injection point can be injected
+     *
+     * @param type      The type to check
+     * @param qualifier The qualifier of the injection point ({@code null} if it is not qualified)
+     * @return {@code true} is the type injectable
+     */
+    boolean isInjectable(Type type, Key qualifier) {
+        if (qualifier == null) {
+            return isInjectable(type);
+        }
+        recordDependency(qualifier);
+        return current().getQualified(qualifier) != null;
     }
 
     /**
@@ -100,9 +366,14 @@ public class Injector implements Cloneable {
      * @return {@code true} is the class injectable
      */
     public boolean isInjectable(Class aClass) {
-        if (mapping.containsKey(aClass)) {
+        recordDependency(aClass);
+        if (current().get(aClass) != null) {
             return true;
         }
+        InjectionUnit auto = autoBind(aClass);
+        if (auto != null) {
+            return InjectionUnit.isInstantiable(auto.getToInject(), this);
+        }
 
         /*
         Classes name for primitive type
@@ -142,24 +413,461 @@ public class Injector implements Cloneable {
 
     /**
      * Get an instance of the requested class.
-     * Silently fail.
+     * Silently fail (unless the injector is strict).
+     * <p>
+     * When a class can't be created because no constructor can be used, the failure is remembered
+     * until the mapping change: the next calls fail immediately.
      *
      * @param aClass The class
      * @return an instance of the class
+     * @throws ResolutionException   if the injector is strict and the instance can't be created
+     * @throws IllegalStateException if the injector is closed
      */
     public <T> T get(Class<? extends T> aClass) {
+        checkOpen();
+        if (pinned.get()[0] == null) {
+            // Outside of a resolution, an instance already built is returned without pinning the mapping
+            InjectionUnit mapped = bindings.get(aClass);
+            Object instance = mapped == null ? null : mapped.getBuilt();
+            if (instance != null) {
+                return (T) instance;
+            }
+        }
+        ResolutionException known = failures.get(aClass);
+        if (known != null) {
+            // A new exception for each call: the cached one may have been changed by the caller that received it
+            return fail(new ResolutionException(aClass, known.getCause()));
+        }
+        boolean root = pin();
+        try {
+            return (T) getUnit(aClass).get(this);
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            return failed(aClass, null, e);
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Get an instance of a qualified class.
+     * Silently fail (unless the injector is strict).
+     *
+     * @param aClass    The class
+     * @param qualifier The qualifier
+     * @return an instance of the class, {@code null} if the qualified class is not mapped
+     * @throws ResolutionException      if the injector is strict and the instance can't be created
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     * @throws IllegalStateException    if the injector is closed
+     */
+    public <T> T get(Class<T> aClass, Annotation qualifier) {
+        return get(Key.of(aClass, qualifier));
+    }
+
+    /**
+     * Get an instance of a qualified class.
+     * Silently fail (unless the injector is strict).
+     *
+     * @param key The qualified class
+     * @return an instance of the class, {@code null} if the qualified class is not mapped
+     * @throws ResolutionException if the injector is strict and the instance can't be created
+     */
+    private <T> T get(Key key) {
+        checkOpen();
+        boolean root = pin();
+        try {
+            InjectionUnit unit = current().getQualified(key);
+            if (unit == null) {
+                return fail(new ResolutionException(key.getType(), "No mapping for " + key, null));
+            }
+            return (T) unit.get(this);
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            return failed(key.getType(), key, e);
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Handle the failure of the creation of an instance.
+     * Structural failures (no usable constructor, inaccessible constructor) of unqualified classes are remembered
+     * until the mapping change.
+     *
+     * @param aClass    The requested class
+     * @param qualifier The qualifier of the request ({@code null} if it is not qualified)
+     * @param error     The error
+     * @return {@code null}
+     * @throws ResolutionException if the injector is strict
+     */
+    <T> T failed(Class aClass, Key qualifier, Exception error) {
+        ResolutionException failure = new ResolutionException(aClass, error);
+        if (qualifier != null || error instanceof InvocationTargetException) {
+            // The constructor failed (the next call may succeed), or the failure cache is by class only
+            return fail(failure);
+        }
+        failures.put(aClass, failure);
+        if (bindings != current()) {
+            // The mapping changed during the resolution, the failure may be outdated
+            failures.remove(aClass, failure);
+        }
+        return fail(failure);
+    }
+
+    /**
+     * Get the injection unit used to get an instance of a class: its mapping, its auto-binding,
+     * or a new instance of the class itself
+     *
+     * @param aClass The requested class
+     * @return The injection unit
+     */
+    InjectionUnit getUnit(Class aClass) {
+        recordDependency(aClass);
+        InjectionUnit unit = current().get(aClass);
+        if (unit == null) {
+            unit = autoBind(aClass);
+        }
+        if (unit == null) {
+            AtomicReference<InjectionUnit> implicit = implicitUnits.get(aClass);
+            unit = implicit.get();
+            if (unit == null) {
+                implicit.compareAndSet(null, new InjectionUnit(aClass, InjectionUnit.Instantiation.NewInstance));
+                unit = implicit.get();
+            }
+        }
+        return unit;
+    }
+
+    /**
+     * Get the injection unit used for an injection point
+     *
+     * @param type      The injected type
+     * @param qualifier The qualifier of the injection point ({@code null} if it is not qualified)
+     * @return The injection unit, {@code null} if the qualified class is not mapped
+     */
+    InjectionUnit getUnit(Type type, Key qualifier) {
+        if (qualifier == null) {
+            return getUnit(erase(type));
+        }
+        recordDependency(qualifier);
+        return current().getQualified(qualifier);
+    }
+
+    /**
+     * Get the injection unit of a class without mapping from the implementation index.
+     * The only implementation of an interface (or abstract class) is used, with a singleton instantiation if
+     * the implementation have the {@code @Singleton} annotation.
+     *
+     * @param aClass The requested class
+     * @return The injection unit, {@code null} if the auto-binding is disabled or the class is not in the index
+     */
+    private InjectionUnit autoBind(Class aClass) {
+        if (!autoBinding) {
+            return null;
+        }
+        AtomicReference<InjectionUnit> auto = autoUnits.get(aClass);
+        InjectionUnit unit = auto.get();
+        if (unit == null) {
+            auto.compareAndSet(null, createAutoUnit(aClass));
+            unit = auto.get();
+        }
+        return unit == NOT_INDEXED ? null : unit;
+    }
+
+    /**
+     * Create the injection unit of a class from the implementation index
+     *
+     * @param aClass The requested class
+     * @return The injection unit, {@link #NOT_INDEXED} if the class is not in the index
+     */
+    private InjectionUnit createAutoUnit(Class aClass) {
+        ImplementationIndex index = getIndex();
+        if (aClass.isInterface() || Modifier.isAbstract(aClass.getModifiers())) {
+            String implementation = index.getImplementation(aClass.getName());
+            if (implementation == null) {
+                return NOT_INDEXED;
+            }
+            Class implementationClass;
+            try {
+                implementationClass = Class.forName(implementation, false, aClass.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                LoggerFactory.getLogger(this.getClass()).warn("Unable to load the indexed class " + implementation, e);
+                return NOT_INDEXED;
+            }
+            if (!aClass.isAssignableFrom(implementationClass)) {
+                return NOT_INDEXED;
+            }
+            if (index.isSingleton(implementation)) {
+                // Same unit (and so same instance) as a direct request of the implementation
+                InjectionUnit unit = autoBind(implementationClass);
+                return unit == null ? NOT_INDEXED : unit;
+            }
+            return new InjectionUnit(implementationClass, InjectionUnit.Instantiation.NewInstance);
+        }
+        if (index.isSingleton(aClass.getName())) {
+            return new InjectionUnit(aClass, InjectionUnit.Instantiation.Singleton);
+        }
+        return NOT_INDEXED;
+    }
+
+    /**
+     * Get the implementation index, read it on the first call
+     *
+     * @return The index
+     */
+    private ImplementationIndex getIndex() {
+        ImplementationIndex result = index;
+        if (result == null) {
+            synchronized (writeLock) {
+                result = index;
+                if (result == null) {
+                    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                    if (loader == null) {
+                        loader = Injector.class.getClassLoader();
+                    }
+                    result = new ImplementationIndex(loader);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get an instance of the requested class, the whole construction (including the dependencies) must be done
+     * before a deadline.
+     * The deadline is checked before and after the construction of each instance of the graph, and bounds the wait
+     * for a singleton built by another thread. A singleton is never left partially built: either it's complete
+     * and available to other threads, or it's not created.
+     * Silently fail on other errors (unless the injector is strict).
+     *
+     * @param aClass  The class
+     * @param timeout The maximum time to build the instance
+     * @param unit    The unit of the timeout
+     * @return an instance of the class
+     * @throws ResolutionTimeoutException if the deadline is reached, the exception name the class being built
+     * @throws ResolutionException        if the injector is strict and the instance can't be created
+     */
+    public <T> T get(Class<? extends T> aClass, long timeout, TimeUnit unit) {
+        Deadline previous = deadlines.get();
+        Deadline deadline = new Deadline(System.nanoTime() + unit.toNanos(timeout));
+        if (previous != null && previous.getEnd() - deadline.getEnd() < 0) {
+            // Already in a resolution with a shorter deadline
+            deadline = previous;
+        }
+        deadlines.set(deadline);
         try {
-            if (mapping.containsKey(aClass)) {
-                return (T) mapping.get(aClass).get(this);
+            return get(aClass);
+        } finally {
+            if (previous == null) {
+                deadlines.remove();
             } else {
-                return (T) new InjectionUnit(aClass, InjectionUnit.Instantiation.NewInstance).get(this);
+                deadlines.set(previous);
             }
+        }
+    }
+
+    /**
+     * Get the deadline of the resolution in progress on the current thread
+     *
+     * @return The deadline, {@code null} if the resolution doesn't have a deadline
+     */
+    Deadline getDeadline() {
+        return deadlines.get();
+    }
+
+    /**
+     * Check that the singletons of the injector have not been closed
+     *
+     * @throws IllegalStateException if the injector is closed
+     */
+    private void checkOpen() {
+        if (shutdownTracker.isClosed()) {
+            throw new IllegalStateException("The injector is closed");
+        }
+    }
+
+    /**
+     * Handle a resolution failure: throw it if the injector is strict, log it (at most once per class and per
+     * interval) otherwise.
+     *
+     * @param failure The failure
+     * @return {@code null}
+     * @throws ResolutionException if the injector is strict
+     */
+    private <T> T fail(ResolutionException failure) {
+        if (strict) {
+            throw failure;
+        }
+        failureLogger.log(this.getClass(), failure.getType(), failure);
+        return null;
+    }
+
+    /**
+     * Analyse the dependency graph of a class, as it would be resolved by {@link #get(Class)} with the current
+     * mapping, without building anything.
+     *
+     * @param aClass The class
+     * @return The dependency graph
+     */
+    public DependencyGraph getDependencyGraph(Class aClass) {
+        boolean root = pin();
+        try {
+            return new DependencyGraph(this, aClass);
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Get an instance of every contribution of a multibinding class.
+     * Silently fail (unless the injector is strict).
+     *
+     * @param aClass The class
+     * @return the instances (immutable), an empty list if the class doesn't have contributions
+     * @throws ResolutionException   if the injector is strict and an instance can't be created
+     * @throws IllegalStateException if the injector is closed
+     */
+    public <T> List<T> getAll(Class<T> aClass) {
+        checkOpen();
+        boolean root = pin();
+        try {
+            MultiBinding binding = current().getMulti(aClass);
+            if (binding == null) {
+                return Collections.emptyList();
+            }
+            return (List<T>) binding.asList(this);
         } catch (IllegalAccessException | InvocationTargetException | InstantiationException e) {
-            LoggerFactory.getLogger(this.getClass()).error("Unable to get an instance of " + aClass.getName(), e);
+            return fail(new ResolutionException(aClass, "Unable to get all instances of " + aClass.getName(), e));
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Get all the instances of a striped class already built, to aggregate their state
+     * (see {@link InjectionUnit.Instantiation#Striped})
+     *
+     * @param aClass The class
+     * @return The instances, an empty list if the class is not striped
+     */
+    public <T> List<T> getStripes(Class<T> aClass) {
+        return (List<T>) getUnit(aClass).getStripes();
+    }
+
+    /**
+     * Get an instance of the requested type (a class, or a collection/array of a multibinding class).
+     * Silently fail (unless the injector is strict).
+     *
+     * @param type The type
+     * @return an instance of the type
+     * @throws ResolutionException if the injector is strict and the instance can't be created
+     */
+    Object resolve(Type type) {
+        Class element = multiBindingElement(type);
+        if (element == null) {
+            return get(erase(type));
+        }
+        checkOpen();
+        try {
+            MultiBinding binding = current().getMulti(element);
+            Class raw = erase(type);
+            if (raw.isArray()) {
+                return binding.asArray(this);
+            }
+            if (Set.class.equals(raw)) {
+                return binding.asSet(this);
+            }
+            return binding.asList(this);
+        } catch (IllegalAccessException | InvocationTargetException | InstantiationException e) {
+            return fail(new ResolutionException(element, "Unable to get all instances of " + element.getName(), e));
+        }
+    }
+
+    /**
+     * Get an instance for an injection point.
+     * Silently fail (unless the injector is strict).
+     *
+     * @param type      The injected type
+     * @param qualifier The qualifier of the injection point ({@code null} if it is not qualified)
+     * @return an instance of the type
+     * @throws ResolutionException if the injector is strict and the instance can't be created
+     */
+    Object resolve(Type type, Key qualifier) {
+        if (qualifier == null) {
+            return resolve(type);
+        }
+        return get(qualifier);
+    }
+
+    /**
+     * Get the multibinding class of a collection/array type
+     *
+     * @param type The type to check
+     * @return The class of the contributions, {@code null} if the type is not a multibinding injection
+     */
+    private Class multiBindingElement(Type type) {
+        Type element = null;
+        if (type instanceof Class && ((Class) type).isArray()) {
+            element = ((Class) type).getComponentType();
+        } else if (type instanceof ParameterizedType) {
+            Type raw = ((ParameterizedType) type).getRawType();
+            if (List.class.equals(raw) || Set.class.equals(raw)
+                    || Collection.class.equals(raw) || Iterable.class.equals(raw)) {
+                element = ((ParameterizedType) type).getActualTypeArguments()[0];
+                if (element instanceof WildcardType) {
+                    element = ((WildcardType) element).getUpperBounds()[0];
+                }
+            }
+        }
+        if (!(element instanceof Class)) {
+            return null;
+        }
+        recordDependency((Class) element);
+        Bindings snapshot = current();
+        if (!snapshot.isMultiEmpty() && snapshot.getMulti((Class) element) != null) {
+            return (Class) element;
         }
         return null;
     }
 
+    /**
+     * Get the contributions injected for a type
+     *
+     * @param type The type
+     * @return The contributions, {@code null} if the type is not a multibinding injection
+     */
+    InjectionUnit[] getContributions(Type type) {
+        Class element = multiBindingElement(type);
+        if (element == null) {
+            return null;
+        }
+        return current().getMulti(element).getContributions();
+    }
+
+    /**
+     * Get the class of a type (without generics)
+     *
+     * @param type The type
+     * @return The raw class
+     */
+    static Class erase(Type type) {
+        if (type instanceof Class) {
+            return (Class) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return erase(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(erase(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            return erase(((TypeVariable) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return erase(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
     public <T> T get(Class<? extends T> aClass, Object... params) {
         try {
             Injector wrapper = clone();
@@ -180,16 +888,33 @@ public class Injector implements Cloneable {
      * @param instance The object to work on
      */
     public void injectIntoProperties(Object instance) {
-        Set<Field> fields = new HashSet<>();
-        fields.addAll(Arrays.asList(instance.getClass().getFields()));
-        fields.addAll(Arrays.asList(instance.getClass().getDeclaredFields()));
-        for (Field field : fields) {
-            if (field.isAnnotationPresent(Inject.class)) {
-                try {
-                    field.set(instance, get(field.getType()));
-                } catch (IllegalAccessException e) {
-                    LoggerFactory.getLogger(this.getClass()).warn("Can't inject into property " + field.getName(), e);
-                }
+        boolean root = pin();
+        try {
+            injectIntoPropertiesPinned(instance);
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Inject instance into an existing object properties, with the mapping snapshot of the current thread
+     *
+     * @param instance The object to work on
+     */
+    private void injectIntoPropertiesPinned(Object instance) {
+        ClassMetadata metadata = ClassMetadata.of(instance.getClass());
+        Field[] fields = metadata.getInjectableFields();
+        for (int index = 0; index < fields.length; index++) {
+            Field field = fields[index];
+            Object value = resolve(field.getGenericType(), metadata.getFieldQualifier(index));
+            if (value == null && field.getType().isPrimitive()) {
+                // Keep the default value
+                continue;
+            }
+            try {
+                field.set(instance, value);
+            } catch (IllegalAccessException e) {
+                LoggerFactory.getLogger(this.getClass()).warn("Can't inject into property " + field.getName(), e);
             }
         }
     }
@@ -212,11 +937,16 @@ public class Injector implements Cloneable {
      */
     public Object injectIntoMethod(Object instance, Method method)
             throws InvocationTargetException, IllegalAccessException {
-        ArrayList<Object> objects = new ArrayList<>();
-        for (Class param : method.getParameterTypes()) {
-            objects.add(get(param));
+        boolean root = pin();
+        try {
+            ArrayList<Object> objects = new ArrayList<>();
+            for (Type param : ClassMetadata.parameterTypes(method)) {
+                objects.add(resolve(param));
+            }
+            return method.invoke(instance, objects.toArray());
+        } finally {
+            unpin(root);
         }
-        return method.invoke(instance, objects.toArray());
     }
 
     /**
@@ -236,19 +966,94 @@ public class Injector implements Cloneable {
      *                                   possible unwrapping, a parameter value cannot be converted to the corresponding
      *                                   formal parameter type by a method invocation conversion.</p>
      * @throws NoSuchMethodException     The no method with the provided name can be executed
+     * @throws IllegalStateException     if the injector is closed
      */
     public Object injectIntoMethodName(Object instance, String methodName)
             throws InvocationTargetException, IllegalAccessException, NoSuchMethodException, IllegalArgumentException {
-        for (Method method : instance.getClass().getMethods()) {
-            if (!method.getName().equals(methodName)) {
-                continue;
+        checkOpen();
+        boolean root = pin();
+        try {
+            Class aClass = instance.getClass();
+            ConcurrentMap<String, MethodInvoker> classInvokers = invokers.get(aClass);
+            if (classInvokers == null) {
+                classInvokers = new ConcurrentHashMap<>();
+                ConcurrentMap<String, MethodInvoker> existing = invokers.putIfAbsent(aClass, classInvokers);
+                if (existing != null) {
+                    classInvokers = existing;
+                }
             }
+            Bindings snapshot = current();
+            MethodInvoker cached = classInvokers.get(methodName);
+            MethodInvoker invoker = cached;
+            if (invoker == null || !invoker.isValidFor(snapshot)) {
+                invoker = findMethodInvoker(aClass, methodName, snapshot);
+            } else if (invoker.getBindings() != snapshot) {
+                // Same rules, avoid to compare them again on the next calls
+                invoker = invoker.rebase(snapshot);
+            }
+            if (invoker != cached && snapshot == bindings) {
+                // Only the decisions made with the current mapping are cached
+                if (cached == null) {
+                    classInvokers.putIfAbsent(methodName, invoker);
+                } else {
+                    classInvokers.replace(methodName, cached, invoker);
+                }
+            }
+            if (invoker.isEmpty()) {
+                throw new NoSuchMethodException();
+            }
+            return invoker.invoke(this, instance);
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Link the construction plan of a class, with the mapping snapshot of the current thread
+     *
+     * @param toInject The class to build
+     * @return The plan, a plan that is not linked if the class must be built with the generic construction
+     */
+    ConstructionPlan linkPlan(Class toInject) {
+        Set<Object> previous = dependencyRecorder.get();
+        Set<Object> dependencies = new HashSet<>();
+        dependencyRecorder.set(dependencies);
+        try {
+            return ConstructionPlan.link(toInject, this, dependencies);
+        } finally {
+            if (previous == null) {
+                dependencyRecorder.remove();
+            } else {
+                dependencyRecorder.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Find the first injectable method of a class with a given name
+     *
+     * @param aClass     The class
+     * @param methodName The method name
+     * @param snapshot   The mapping snapshot of the call
+     * @return The invoker of the method (empty if there is no injectable method)
+     */
+    private MethodInvoker findMethodInvoker(Class aClass, String methodName, Bindings snapshot) {
+        Set<Object> dependencies = new HashSet<>();
+        dependencyRecorder.set(dependencies);
+        try {
+            for (Method method : ClassMetadata.of(aClass).getPublicMethods()) {
+                if (!method.getName().equals(methodName)) {
+                    continue;
+                }
 
-            if (isMethodInjectable(method)) {
-                return injectIntoMethod(instance, method);
+                if (isMethodInjectable(method)) {
+                    return MethodInvoker.link(method, this, snapshot, dependencies);
+                }
             }
+            return MethodInvoker.none(snapshot, dependencies);
+        } finally {
+            dependencyRecorder.remove();
         }
-        throw new NoSuchMethodException();
     }
 
     /**
@@ -258,20 +1063,32 @@ public class Injector implements Cloneable {
      * @param instance The object to work on
      */
     public void injectIntoSetters(Object instance) {
-        Set<Method> methods = new HashSet<>();
-        methods.addAll(Arrays.asList(instance.getClass().getDeclaredMethods()));
-        methods.addAll(Arrays.asList(instance.getClass().getMethods()));
-        for (Method method : methods) {
-            if (
-                    method.getName().startsWith("set")
-                            && method.getParameterTypes().length == 1
-                            && isMethodInjectable(method)
-                    ) {
-                try {
-                    injectIntoMethod(instance, method);
-                } catch (InvocationTargetException | IllegalAccessException e) {
-                    LoggerFactory.getLogger(this.getClass()).warn("Can't inject into setter " + method.getName(), e);
-                }
+        boolean root = pin();
+        try {
+            injectIntoSettersPinned(instance);
+        } finally {
+            unpin(root);
+        }
+    }
+
+    /**
+     * Loop over all setters of an object and inject an instance, with the mapping snapshot of the current thread
+     *
+     * @param instance The object to work on
+     */
+    private void injectIntoSettersPinned(Object instance) {
+        ClassMetadata metadata = ClassMetadata.of(instance.getClass());
+        Method[] setters = metadata.getInjectableSetters();
+        for (int index = 0; index < setters.length; index++) {
+            Type parameter = metadata.getSetterParameter(index);
+            Key qualifier = metadata.getSetterQualifier(index);
+            if (!isInjectable(parameter, qualifier)) {
+                continue;
+            }
+            try {
+                setters[index].invoke(instance, resolve(parameter, qualifier));
+            } catch (InvocationTargetException | IllegalAccessException e) {
+                LoggerFactory.getLogger(this.getClass()).warn("Can't inject into setter " + setters[index].getName(), e);
             }
         }
     }
@@ -299,7 +1116,7 @@ public class Injector implements Cloneable {
         if (!method.isAnnotationPresent(Inject.class) && !force) {
             return false;
         }
-        for (Class variable : method.getParameterTypes()) {
+        for (Type variable : ClassMetadata.parameterTypes(method)) {
             if (!isInjectable(variable)) {
                 return false;
             }
@@ -323,6 +1140,7 @@ public class Injector implements Cloneable {
      */
     public void setInjectProperties(Boolean injectProperties) {
         this.injectProperties = injectProperties;
+        revision = REVISIONS.incrementAndGet();
     }
 
     /**
@@ -341,15 +1159,207 @@ public class Injector implements Cloneable {
      */
     public void setInjectSetters(Boolean injectSetters) {
         this.injectSetters = injectSetters;
+        revision = REVISIONS.incrementAndGet();
+    }
+
+    /**
+     * Indicate if the injector throw an exception when an instance can't be created
+     *
+     * @return {@code true} if the injector is strict
+     */
+    public Boolean getStrict() {
+        return strict;
+    }
+
+    /**
+     * Indicate if the injector should throw a {@link ResolutionException} when an instance can't be created,
+     * instead of logging the failure and returning {@code null}
+     *
+     * @param strict {@code true} to activate
+     */
+    public void setStrict(Boolean strict) {
+        this.strict = strict;
+    }
+
+    /**
+     * Change the minimal time between two logs of the failures of the same class (1 minute by default).
+     * Failures in between are only counted.
+     *
+     * @param duration The duration
+     * @param unit     The unit of the duration
+     */
+    public void setFailureLogInterval(long duration, TimeUnit unit) {
+        failureLogger.setInterval(duration, unit);
+    }
+
+    /**
+     * Get the recorder of the resolution trees
+     *
+     * @return The tracer, {@code null} if the tracing is disabled
+     */
+    public ResolutionTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Enable (or disable) the recording of the resolution tree of every instance built.
+     *
+     * @param tracer The tracer to use, {@code null} to disable the tracing
+     */
+    public void setTracer(ResolutionTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * Indicate if the injector use the build-time implementation index
+     *
+     * @return {@code true} if the auto-binding is active
+     */
+    public Boolean getAutoBinding() {
+        return autoBinding;
+    }
+
+    /**
+     * Indicate if the injector should use the implementation index written by {@link ImplementationIndexProcessor}
+     * for the classes without mapping: an interface (or abstract class) with only one implementation is bound to it,
+     * a class with the {@code @Singleton} annotation is a singleton.
+     * The index is read once, on the first lookup; explicit mappings always take precedence.
+     *
+     * @param autoBinding {@code true} to activate
+     */
+    public void setAutoBinding(Boolean autoBinding) {
+        this.autoBinding = autoBinding;
+        revision = REVISIONS.incrementAndGet();
+        invokers.clear();
+        failures.clear();
+    }
+
+    /**
+     * Get the number of constructions after which a binding use a pre-linked construction plan
+     *
+     * @return The threshold, {@code 0} if the construction plans are disabled
+     */
+    public int getHotThreshold() {
+        return hotThreshold;
+    }
+
+    /**
+     * Change the number of constructions after which a binding is considered hot and use a pre-linked construction
+     * plan: the constructor, properties, setters and dependencies are chosen once, and called with method handles
+     * instead of reflection. The plan is rebuilt when the mapping of one of its dependencies or the configuration
+     * change.
+     * Construction plans are not used while tracing.
+     *
+     * @param hotThreshold The threshold, {@code 0} to disable the construction plans (default)
+     */
+    public void setHotThreshold(int hotThreshold) {
+        this.hotThreshold = hotThreshold;
+    }
+
+    /**
+     * Get the revision of the configuration (changed when the packages, the injection types or the auto-binding
+     * change)
+     *
+     * @return The revision
+     */
+    int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Get the configuration values injected by the injector
+     *
+     * @return The configuration, {@code null} if there is none
+     */
+    public ConfigSnapshot getConfig() {
+        return config;
+    }
+
+    /**
+     * Inject configuration values in the {@code String}, primitive and boxed primitive injection points qualified
+     * with {@code @Named(name)}.
+     * The values of the previous configuration are replaced atomically (a resolution in progress sees either the
+     * previous values or the new ones).
+     *
+     * @param config The configuration, {@code null} to remove the current one
+     */
+    public void setConfig(ConfigSnapshot config) {
+        synchronized (writeLock) {
+            BindingBatch batch = new BindingBatch();
+            if (this.config != null) {
+                this.config.unbind(batch);
+            }
+            if (config != null) {
+                config.bind(batch);
+            }
+            this.config = config;
+            apply(batch);
+        }
+    }
+
+    /**
+     * Get the tracker of the built singletons
+     *
+     * @return The tracker
+     */
+    ShutdownTracker getShutdownTracker() {
+        return shutdownTracker;
+    }
+
+    /**
+     * Dispose all singletons built by the injector (wait at most 30 seconds).
+     * Failures are logged.
+     *
+     * @see #close(long, TimeUnit)
+     */
+    @Override
+    public void close() {
+        CloseReport report = close(DEFAULT_CLOSE_TIMEOUT, TimeUnit.SECONDS);
+        for (CloseReport.Entry entry : report.getEntries()) {
+            if (entry.getError() != null) {
+                LoggerFactory.getLogger(this.getClass()).warn(
+                        "Unable to close " + entry.getInstance().getClass().getName(),
+                        entry.getError()
+                );
+            }
+        }
+        for (Object instance : report.getNotClosed()) {
+            LoggerFactory.getLogger(this.getClass()).warn("Closing timeout for " + instance.getClass().getName());
+        }
+    }
+
+    /**
+     * Dispose all singletons built by the injector: call their {@code @PreDestroy} methods, then close the
+     * {@code AutoCloseable} ones.
+     * Singletons are closed in reverse dependency order (a singleton is closed after every singletons using it),
+     * independent singletons are closed in parallel.
+     * Singletons given to the injector (with {@link #addMapping(Object)}) are not closed.
+     * Once closed, the injector (and its clones) can't provide instances anymore: {@code get} throws an
+     * {@link IllegalStateException}.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return The closing report (closing time of every instance, errors and instance not closed in time)
+     */
+    public CloseReport close(long timeout, TimeUnit unit) {
+        return shutdownTracker.close(timeout, unit);
     }
 
     @Override
     public Injector clone() throws CloneNotSupportedException {
         Injector clone = (Injector) super.clone();
-        clone.workingPackages.addAll(workingPackages);
-        clone.mapping.putAll(mapping);
+        clone.workingPackages = new HashSet<>(workingPackages);
+        clone.writeLock = new Object();
+        clone.pinned = newPinned();
+        clone.dependencyRecorder = new ThreadLocal<>();
+        clone.deadlines = new ThreadLocal<>();
+        clone.invokers = new ConcurrentHashMap<>();
+        clone.failures = new ConcurrentHashMap<>();
         clone.injectProperties = injectProperties;
         clone.injectSetters = injectSetters;
+        clone.strict = strict;
+        clone.autoBinding = autoBinding;
+        clone.hotThreshold = hotThreshold;
 
         return clone;
     }
@@ -361,9 +1371,22 @@ public class Injector implements Cloneable {
 
         Injector injector = (Injector) o;
 
-        if (!mapping.equals(injector.mapping)) return false;
+        if (!bindings.equals(injector.bindings)) return false;
         if (!workingPackages.equals(injector.workingPackages)) return false;
         if (!injectProperties.equals(injector.injectProperties)) return false;
+        if (!strict.equals(injector.strict)) return false;
+        if (!autoBinding.equals(injector.autoBinding)) return false;
         return injectSetters.equals(injector.injectSetters);
     }
+
+    /**
+     * Cache of an injection unit by class.
+     * The unit is attached to its class (with a {@link ClassValue}), so it doesn't prevent it to be unloaded.
+     */
+    private static final class UnitCache extends ClassValue<AtomicReference<InjectionUnit>> {
+        @Override
+        protected AtomicReference<InjectionUnit> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    }
 }
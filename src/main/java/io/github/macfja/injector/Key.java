@@ -0,0 +1,178 @@
+package io.github.macfja.injector;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Key class.
+ * A qualified injection: a class and a qualifier annotation ({@code @Named} or any annotation with
+ * {@code @javax.inject.Qualifier}).
+ * <p>
+ * Keys are interned (one instance per class and qualifier), so the keys read once on the injection points and
+ * the keys of the mapping are the same objects: a qualified lookup cost the same as a class lookup.
+ * The interned keys are only weakly referenced (by their class, with a {@link ClassValue}): a key no longer used by
+ * a mapping or an injection point is released, so it doesn't prevent its class or its qualifier to be unloaded.
+ *
+ * @author MacFJA
+ */
+final class Key {
+    /**
+     * The interned keys of each class (weak keys and values, synchronized on the map)
+     */
+    private static final ClassValue<Map<Key, WeakReference<Key>>> INTERNED = new ClassValue<Map<Key, WeakReference<Key>>>() {
+        @Override
+        protected Map<Key, WeakReference<Key>> computeValue(Class<?> type) {
+            return new WeakHashMap<>();
+        }
+    };
+
+    /**
+     * The qualified class
+     */
+    private final Class type;
+    /**
+     * The qualifier: the annotation, or the annotation class for a qualifier without attribute
+     */
+    private final Object qualifier;
+    /**
+     * The precomputed hash code
+     */
+    private final int hash;
+
+    /**
+     * Simple Constructor
+     *
+     * @param type      The qualified class
+     * @param qualifier The qualifier
+     */
+    private Key(Class type, Object qualifier) {
+        this.type = type;
+        this.qualifier = qualifier;
+        this.hash = 31 * type.hashCode() + qualifier.hashCode();
+    }
+
+    /**
+     * Get the key of a qualified class
+     *
+     * @param type      The class
+     * @param qualifier The qualifier annotation
+     * @return The interned key
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     */
+    static Key of(Class type, Annotation qualifier) {
+        Class<? extends Annotation> annotationType = qualifier.annotationType();
+        if (annotationType.getDeclaredMethods().length == 0) {
+            return of(type, annotationType);
+        }
+        checkQualifier(annotationType);
+        return intern(type, qualifier);
+    }
+
+    /**
+     * Get the key of a class qualified by an annotation without attribute
+     *
+     * @param type          The class
+     * @param qualifierType The qualifier annotation class
+     * @return The interned key
+     * @throws IllegalArgumentException if the annotation is not a qualifier, or has attributes
+     */
+    static Key of(Class type, Class<? extends Annotation> qualifierType) {
+        checkQualifier(qualifierType);
+        if (qualifierType.getDeclaredMethods().length != 0) {
+            // An injection point is qualified by the annotation values, not by the annotation class
+            throw new IllegalArgumentException(qualifierType.getName() + " has attributes, use an annotation instance");
+        }
+        return intern(type, qualifierType);
+    }
+
+    /**
+     * Get the key of an injection point
+     *
+     * @param type        The injected class
+     * @param annotations The annotations of the injection point
+     * @return The interned key, {@code null} if the injection point is not qualified
+     */
+    static Key of(Class type, Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType().isAnnotationPresent(Qualifier.class)) {
+                return of(type, annotation);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check that an annotation is a qualifier
+     *
+     * @param annotationType The annotation class
+     * @throws IllegalArgumentException if the annotation is not a qualifier
+     */
+    private static void checkQualifier(Class<? extends Annotation> annotationType) {
+        if (!annotationType.isAnnotationPresent(Qualifier.class)) {
+            throw new IllegalArgumentException(annotationType.getName() + " is not a qualifier");
+        }
+    }
+
+    /**
+     * Get the unique instance of a key
+     *
+     * @param type      The qualified class
+     * @param qualifier The qualifier
+     * @return The interned key
+     */
+    private static Key intern(Class type, Object qualifier) {
+        Key key = new Key(type, qualifier);
+        Map<Key, WeakReference<Key>> keys = INTERNED.get(type);
+        synchronized (keys) {
+            WeakReference<Key> reference = keys.get(key);
+            Key existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            keys.put(key, new WeakReference<>(key));
+        }
+        return key;
+    }
+
+    /**
+     * Get the qualified class
+     *
+     * @return The class
+     */
+    Class getType() {
+        return type;
+    }
+
+    /**
+     * Get the qualifier
+     *
+     * @return The annotation, or the annotation class for a qualifier without attribute
+     */
+    Object getQualifier() {
+        return qualifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Key key = (Key) o;
+
+        return type.equals(key.type) && qualifier.equals(key.qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        String name = qualifier instanceof Class ? "@" + ((Class) qualifier).getName() : qualifier.toString();
+        return name + " " + type.getName();
+    }
+}
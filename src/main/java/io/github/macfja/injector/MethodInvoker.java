@@ -0,0 +1,184 @@
+package io.github.macfja.injector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Set;
+
+/**
+ * MethodInvoker class.
+ * A method chosen for a method name injection (see {@link Injector#injectIntoMethodName(Object, String)}),
+ * with its pre-linked invoker and the injection unit of every parameter resolved once.
+ *
+ * @author MacFJA
+ */
+class MethodInvoker {
+    /**
+     * The method to invoke
+     */
+    private final Method method;
+    /**
+     * The pre-linked invoker, with the signature {@code (Object instance, Object[] arguments)Object}
+     * ({@code null} if the method is not accessible through a method handle)
+     */
+    private final MethodHandle handle;
+    /**
+     * The values to inject in the method parameters
+     */
+    private final Dependency[] arguments;
+    /**
+     * The mapping snapshot the method has been chosen with
+     */
+    private final Bindings bindings;
+    /**
+     * The classes (and qualified classes) which injection rules have been read to choose the method
+     */
+    private final Set<Object> dependencies;
+
+    /**
+     * Simple Constructor
+     *
+     * @param method       The method to invoke
+     * @param handle       The pre-linked invoker
+     * @param arguments    The values to inject in the method parameters
+     * @param bindings     The mapping snapshot the method has been chosen with
+     * @param dependencies The classes which injection rules have been read to choose the method
+     */
+    private MethodInvoker(Method method, MethodHandle handle, Dependency[] arguments, Bindings bindings,
+                          Set<Object> dependencies) {
+        this.method = method;
+        this.handle = handle;
+        this.arguments = arguments;
+        this.bindings = bindings;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Create the marker of a method name without injectable method
+     *
+     * @param bindings     The mapping snapshot the methods have been rejected with
+     * @param dependencies The classes which injection rules have been read to reject the methods
+     * @return The empty invoker
+     */
+    static MethodInvoker none(Bindings bindings, Set<Object> dependencies) {
+        return new MethodInvoker(null, null, new Dependency[0], bindings, dependencies);
+    }
+
+    /**
+     * Create the invoker of a method
+     *
+     * @param method       The method to invoke
+     * @param injector     The injector (with the mapping snapshot of the current thread)
+     * @param bindings     The mapping snapshot the method has been chosen with
+     * @param dependencies The classes which injection rules have been read to choose the method
+     *                     (filled with the rules read to resolve the parameters)
+     * @return The invoker
+     */
+    static MethodInvoker link(Method method, Injector injector, Bindings bindings, Set<Object> dependencies) {
+        Type[] parameters = ClassMetadata.parameterTypes(method);
+        Dependency[] arguments = new Dependency[parameters.length];
+        for (int index = 0; index < parameters.length; index++) {
+            arguments[index] = new Dependency(parameters[index], null, injector);
+        }
+        MethodHandle handle;
+        try {
+            MethodHandle target = MethodHandles.lookup().unreflect(method);
+            // The method exceptions are wrapped before the conversion of the arguments, so they can be told apart
+            MethodHandle failure = ConstructionPlan.RETHROW.asType(MethodType.methodType(target.type().returnType(), Throwable.class));
+            handle = MethodHandles.catchException(target, Throwable.class, failure)
+                    .asType(MethodType.genericMethodType(parameters.length + 1))
+                    .asSpreader(Object[].class, parameters.length);
+        } catch (IllegalAccessException e) {
+            // Fallback on reflection
+            handle = null;
+        }
+        return new MethodInvoker(method, handle, arguments, bindings, dependencies);
+    }
+
+    /**
+     * Indicate if there is no injectable method
+     *
+     * @return {@code true} if there is no method to invoke
+     */
+    boolean isEmpty() {
+        return method == null;
+    }
+
+    /**
+     * Indicate if the choice of the method depends on the injection rule of some classes
+     *
+     * @param classes The classes to check
+     * @return {@code true} if at least one class have been read to choose the method
+     */
+    boolean dependsOn(Set<Class> classes) {
+        for (Object dependency : dependencies) {
+            if (classes.contains(dependency instanceof Key ? ((Key) dependency).getType() : dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the mapping snapshot the method has been chosen with
+     *
+     * @return The snapshot
+     */
+    Bindings getBindings() {
+        return bindings;
+    }
+
+    /**
+     * Check if the choice of the method is still valid with a mapping snapshot
+     *
+     * @param snapshot The snapshot
+     * @return {@code true} if the rules read to choose the method are the same in the snapshot
+     */
+    boolean isValidFor(Bindings snapshot) {
+        return bindings.hasSameRules(snapshot, dependencies);
+    }
+
+    /**
+     * Create a copy of the invoker for a newer mapping snapshot (with the same rules for its dependencies)
+     *
+     * @param snapshot The snapshot
+     * @return The invoker
+     */
+    MethodInvoker rebase(Bindings snapshot) {
+        return new MethodInvoker(method, handle, arguments, snapshot, dependencies);
+    }
+
+    /**
+     * Inject instances into the method parameters and execute it.
+     *
+     * @param parent   The injector that provide the parameters
+     * @param instance The object
+     * @return The method result
+     * @throws InvocationTargetException if the underlying method throws an exception.
+     * @throws IllegalAccessException    if the underlying method is inaccessible.
+     * @throws IllegalArgumentException  if the instance or a parameter value doesn't match the method.
+     */
+    Object invoke(Injector parent, Object instance) throws InvocationTargetException, IllegalAccessException {
+        Object[] values = new Object[arguments.length];
+        for (int index = 0; index < arguments.length; index++) {
+            values[index] = arguments[index].get(parent);
+        }
+        if (handle == null) {
+            return method.invoke(instance, values);
+        }
+        try {
+            return (Object) handle.invokeExact(instance, values);
+        } catch (InvocationTargetException e) {
+            throw e;
+        } catch (ClassCastException | NullPointerException | WrongMethodTypeException e) {
+            // The conversion of the instance or of an argument failed (as the reflection does)
+            throw new IllegalArgumentException(e);
+        } catch (Throwable throwable) {
+            throw new InvocationTargetException(throwable);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.macfja.injector;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MultiBinding class.
+ * All the injection units contributed for one class (see {@link Injector#addMultiMapping(Class, InjectionUnit)}).
+ * Immutable: adding a contribution create a new MultiBinding.
+ * <p>
+ * When every contribution is a singleton, the instances are resolved once into a precomputed array,
+ * and the same immutable List/Set views are returned on every injection.
+ *
+ * @author MacFJA
+ */
+class MultiBinding {
+    /**
+     * The class of the contributions
+     */
+    private final Class type;
+    /**
+     * The contributions, in registration order
+     */
+    private final InjectionUnit[] contributions;
+    /**
+     * {@code true} if all contributions are singletons (the instances can be cached)
+     */
+    private final boolean cacheable;
+    /**
+     * The precomputed instances (only if cacheable)
+     */
+    private volatile Resolved resolved;
+
+    /**
+     * Simple Constructor
+     *
+     * @param type          The class of the contributions
+     * @param contributions The contributions
+     */
+    private MultiBinding(Class type, InjectionUnit[] contributions) {
+        this.type = type;
+        this.contributions = contributions;
+        boolean allSingleton = true;
+        for (InjectionUnit contribution : contributions) {
+            allSingleton &= InjectionUnit.Instantiation.Singleton.equals(contribution.getType());
+        }
+        this.cacheable = allSingleton;
+    }
+
+    /**
+     * Create a MultiBinding with one contribution
+     *
+     * @param type         The class of the contributions
+     * @param contribution The first contribution
+     */
+    MultiBinding(Class type, InjectionUnit contribution) {
+        this(type, new InjectionUnit[]{contribution});
+    }
+
+    /**
+     * Create a new MultiBinding with an additional contribution
+     *
+     * @param contribution The contribution to add
+     * @return The new MultiBinding
+     */
+    MultiBinding with(InjectionUnit contribution) {
+        InjectionUnit[] extended = Arrays.copyOf(contributions, contributions.length + 1);
+        extended[contributions.length] = contribution;
+        return new MultiBinding(type, extended);
+    }
+
+    /**
+     * Get the contributions
+     *
+     * @return The contributions, in registration order
+     */
+    InjectionUnit[] getContributions() {
+        return contributions.clone();
+    }
+
+    /**
+     * Get the contribution instances as an immutable list
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The instances
+     * @throws IllegalAccessException    if a contribution constructor is inaccessible.
+     * @throws InvocationTargetException if a contribution constructor throws an exception.
+     * @throws InstantiationException    if a contribution can't be instantiated.
+     */
+    List<Object> asList(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        if (cacheable) {
+            return resolve(parent).list;
+        }
+        return Collections.unmodifiableList(Arrays.asList(build(parent)));
+    }
+
+    /**
+     * Get the contribution instances as an immutable set
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The instances
+     * @throws IllegalAccessException    if a contribution constructor is inaccessible.
+     * @throws InvocationTargetException if a contribution constructor throws an exception.
+     * @throws InstantiationException    if a contribution can't be instantiated.
+     */
+    Set<Object> asSet(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        if (cacheable) {
+            return resolve(parent).set;
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(build(parent))));
+    }
+
+    /**
+     * Get the contribution instances as an array (a new array, as arrays are mutable)
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The instances, the array component type is the class of the contributions
+     * @throws IllegalAccessException    if a contribution constructor is inaccessible.
+     * @throws InvocationTargetException if a contribution constructor throws an exception.
+     * @throws InstantiationException    if a contribution can't be instantiated.
+     */
+    Object[] asArray(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        if (cacheable) {
+            return resolve(parent).array.clone();
+        }
+        return build(parent);
+    }
+
+    /**
+     * Get the precomputed instances, resolve them on first call
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The precomputed instances
+     * @throws IllegalAccessException    if a contribution constructor is inaccessible.
+     * @throws InvocationTargetException if a contribution constructor throws an exception.
+     * @throws InstantiationException    if a contribution can't be instantiated.
+     */
+    private Resolved resolve(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Resolved current = resolved;
+        if (current == null) {
+            current = new Resolved(build(parent));
+            resolved = current;
+        }
+        return current;
+    }
+
+    /**
+     * Get an instance of every contribution
+     *
+     * @param parent The parent injector (which initiate the build)
+     * @return The instances, the array component type is the class of the contributions
+     * @throws IllegalAccessException    if a contribution constructor is inaccessible.
+     * @throws InvocationTargetException if a contribution constructor throws an exception.
+     * @throws InstantiationException    if a contribution can't be instantiated.
+     */
+    private Object[] build(Injector parent)
+            throws IllegalAccessException, InvocationTargetException, InstantiationException {
+        Object[] instances = (Object[]) Array.newInstance(type, contributions.length);
+        for (int index = 0; index < contributions.length; index++) {
+            instances[index] = contributions[index].get(parent);
+        }
+        return instances;
+    }
+
+    /**
+     * The precomputed instances, with their immutable views
+     */
+    private static class Resolved {
+        private final Object[] array;
+        private final List<Object> list;
+        private final Set<Object> set;
+
+        Resolved(Object[] array) {
+            this.array = array;
+            this.list = Collections.unmodifiableList(Arrays.asList(array));
+            this.set = Collections.unmodifiableSet(new LinkedHashSet<>(this.list));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.macfja.injector;
+
+import javax.inject.Named;
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+
+/**
+ * Names class.
+ * Create {@code @Named} qualifiers, to declare qualified mappings
+ * (see {@link Injector#addMapping(Class, Annotation, InjectionUnit)}).
+ *
+ * @author MacFJA
+ */
+public final class Names {
+    /**
+     * Utility class
+     */
+    private Names() {
+    }
+
+    /**
+     * Create a {@code @Named} qualifier, equal to the annotation {@code @Named(value)} of an injection point
+     *
+     * @param value The name
+     * @return The qualifier
+     */
+    public static Named named(String value) {
+        return new NamedImpl(value);
+    }
+
+    /**
+     * NamedImpl class.
+     * Implementation of {@code @Named} that follow the {@link Annotation} contract for equals and hashCode.
+     */
+    private static class NamedImpl implements Named, Serializable {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The name
+         */
+        private final String value;
+
+        /**
+         * Simple Constructor
+         *
+         * @param value The name
+         */
+        NamedImpl(String value) {
+            if (value == null) {
+                throw new NullPointerException("value");
+            }
+            this.value = value;
+        }
+
+        @Override
+        public String value() {
+            return value;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Named.class;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Named)) {
+                return false;
+            }
+            return value.equals(((Named) o).value());
+        }
+
+        @Override
+        public int hashCode() {
+            // As defined by Annotation.hashCode(): (127 * member name hash) ^ member value hash
+            return (127 * "value".hashCode()) ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "@" + Named.class.getName() + "(value=" + value + ")";
+        }
+    }
+}
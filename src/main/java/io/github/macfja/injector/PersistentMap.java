@@ -0,0 +1,391 @@
+package io.github.macfja.injector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PersistentMap class.
+ * Immutable hash map (hash array mapped trie): a change returns a new map that shares all the untouched
+ * branches with the previous one, so adding or removing a key costs {@code O(log32 n)} instead of a full copy.
+ * Keys and values must not be {@code null}.
+ *
+ * @author MacFJA
+ */
+final class PersistentMap<K, V> {
+    /**
+     * Map without any entry
+     */
+    private static final PersistentMap EMPTY = new PersistentMap(null, 0);
+    /**
+     * Number of hash bits used by each level of the trie
+     */
+    private static final int BITS = 5;
+
+    /**
+     * The root node ({@code null} if the map is empty)
+     */
+    private final Node root;
+    /**
+     * The number of entries
+     */
+    private final int size;
+
+    /**
+     * Simple Constructor
+     *
+     * @param root The root node
+     * @param size The number of entries
+     */
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Get the empty map
+     *
+     * @return The map without any entry
+     */
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Get the value of a key
+     *
+     * @param key The key
+     * @return The value, {@code null} if the key is not in the map
+     */
+    V get(K key) {
+        Entry entry = find(key);
+        return entry == null ? null : (V) entry.value;
+    }
+
+    /**
+     * Get the number of entries
+     *
+     * @return The size of the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Indicate if the map doesn't have any entry
+     *
+     * @return {@code true} if the map is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Create a map with an entry added (or replaced)
+     *
+     * @param key   The key
+     * @param value The value
+     * @return The new map
+     */
+    PersistentMap<K, V> with(K key, V value) {
+        Entry existing = find(key);
+        if (existing != null && existing.value == value) {
+            return this;
+        }
+        Entry entry = new Entry(key, hash(key), value);
+        return new PersistentMap<>(
+                root == null ? new Node(entry, 0) : root.with(entry, 0),
+                existing == null ? size + 1 : size
+        );
+    }
+
+    /**
+     * Create a map with an entry removed
+     *
+     * @param key The key
+     * @return The new map
+     */
+    PersistentMap<K, V> without(K key) {
+        if (find(key) == null) {
+            return this;
+        }
+        return new PersistentMap<>(root.without(key, hash(key), 0), size - 1);
+    }
+
+    /**
+     * Get a mutable copy of the entries
+     *
+     * @return The copy
+     */
+    Map<K, V> toMap() {
+        Map<K, V> copy = new HashMap<>();
+        if (root != null) {
+            root.collect((Map<Object, Object>) copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Find the entry of a key
+     *
+     * @param key The key
+     * @return The entry, {@code null} if the key is not in the map
+     */
+    private Entry find(Object key) {
+        int hash = hash(key);
+        Node node = root;
+        int shift = 0;
+        while (node != null) {
+            Object slot = node.slot(hash, shift);
+            if (slot instanceof Node) {
+                node = (Node) slot;
+                shift += BITS;
+            } else if (slot instanceof Entry) {
+                Entry entry = (Entry) slot;
+                return entry.matches(key, hash) ? entry : null;
+            } else if (slot instanceof Entry[]) {
+                for (Entry entry : (Entry[]) slot) {
+                    if (entry.matches(key, hash)) {
+                        return entry;
+                    }
+                }
+                return null;
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the spread hash of a key
+     *
+     * @param key The key
+     * @return The hash
+     */
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PersistentMap that = (PersistentMap) o;
+
+        return size == that.size && toMap().equals(that.toMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return toMap().hashCode();
+    }
+
+    /**
+     * One key/value pair
+     */
+    private static final class Entry {
+        private final Object key;
+        private final int hash;
+        private final Object value;
+
+        Entry(Object key, int hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+
+        /**
+         * Check if the entry is the one of a key
+         *
+         * @param key  The key
+         * @param hash The hash of the key
+         * @return {@code true} if the entry has the key
+         */
+        boolean matches(Object key, int hash) {
+            return this.hash == hash && this.key.equals(key);
+        }
+    }
+
+    /**
+     * One level of the trie: up to 32 slots, each slot is an {@link Entry}, a child {@link Node},
+     * or an {@code Entry[]} of keys with the same hash
+     */
+    private static final class Node {
+        /**
+         * The used slots (one bit per hash fragment)
+         */
+        private final int bitmap;
+        /**
+         * The used slots, in hash fragment order
+         */
+        private final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        /**
+         * Create a node with one entry
+         *
+         * @param entry The entry
+         * @param shift The hash bits already used by the parent levels
+         */
+        Node(Entry entry, int shift) {
+            this(bit(entry.hash, shift), new Object[]{entry});
+        }
+
+        /**
+         * Get the bit of the slot of a hash
+         *
+         * @param hash  The hash
+         * @param shift The hash bits already used by the parent levels
+         * @return The bit
+         */
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        /**
+         * Get the position of a slot in the array
+         *
+         * @param bit The bit of the slot
+         * @return The index
+         */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * Get the slot of a hash
+         *
+         * @param hash  The hash
+         * @param shift The hash bits already used by the parent levels
+         * @return The slot content, {@code null} if the slot is empty
+         */
+        Object slot(int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            return slots[index(bit)];
+        }
+
+        /**
+         * Create a node with an entry added (or replaced)
+         *
+         * @param entry The entry
+         * @param shift The hash bits already used by the parent levels
+         * @return The new node
+         */
+        Node with(Entry entry, int shift) {
+            int bit = bit(entry.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, index);
+                copy[index] = entry;
+                System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+                return new Node(bitmap | bit, copy);
+            }
+            Object[] copy = slots.clone();
+            copy[index] = merge(slots[index], entry, shift + BITS);
+            return new Node(bitmap, copy);
+        }
+
+        /**
+         * Add an entry in an used slot
+         *
+         * @param slot  The current slot content
+         * @param entry The entry
+         * @param shift The hash bits used by the slot content
+         * @return The new slot content
+         */
+        private static Object merge(Object slot, Entry entry, int shift) {
+            if (slot instanceof Node) {
+                return ((Node) slot).with(entry, shift);
+            }
+            Entry[] entries = slot instanceof Entry ? new Entry[]{(Entry) slot} : (Entry[]) slot;
+            if (entries[0].hash == entry.hash) {
+                for (int index = 0; index < entries.length; index++) {
+                    if (entries[index].key.equals(entry.key)) {
+                        if (entries.length == 1) {
+                            return entry;
+                        }
+                        Entry[] copy = entries.clone();
+                        copy[index] = entry;
+                        return copy;
+                    }
+                }
+                Entry[] copy = new Entry[entries.length + 1];
+                System.arraycopy(entries, 0, copy, 0, entries.length);
+                copy[entries.length] = entry;
+                return copy;
+            }
+            // Different hashes always differ before the last level
+            Node node = new Node(bit(entries[0].hash, shift), new Object[]{slot});
+            return node.with(entry, shift);
+        }
+
+        /**
+         * Create a node with an entry removed
+         *
+         * @param key   The key (must be in the node)
+         * @param hash  The hash of the key
+         * @param shift The hash bits already used by the parent levels
+         * @return The new node, {@code null} if the node is empty
+         */
+        Node without(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            Object slot = slots[index];
+            Object replacement = null;
+            if (slot instanceof Node) {
+                replacement = ((Node) slot).without(key, hash, shift + BITS);
+            } else if (slot instanceof Entry[]) {
+                Entry[] entries = (Entry[]) slot;
+                Entry[] remaining = new Entry[entries.length - 1];
+                int position = 0;
+                for (Entry entry : entries) {
+                    if (!entry.key.equals(key)) {
+                        remaining[position++] = entry;
+                    }
+                }
+                replacement = remaining.length == 1 ? remaining[0] : remaining;
+            }
+            if (replacement != null) {
+                Object[] copy = slots.clone();
+                copy[index] = replacement;
+                return new Node(bitmap, copy);
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+            return new Node(bitmap & ~bit, copy);
+        }
+
+        /**
+         * Add all entries of the node in a map
+         *
+         * @param target The map to fill
+         */
+        void collect(Map<Object, Object> target) {
+            for (Object slot : slots) {
+                if (slot instanceof Node) {
+                    ((Node) slot).collect(target);
+                } else if (slot instanceof Entry) {
+                    target.put(((Entry) slot).key, ((Entry) slot).value);
+                } else {
+                    for (Entry entry : (Entry[]) slot) {
+                        target.put(entry.key, entry.value);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.macfja.injector;
+
+/**
+ * ResolutionException class.
+ * Thrown, in strict mode, when an instance of a class can't be created (see {@link Injector#setStrict(Boolean)}).
+ *
+ * @author MacFJA
+ */
+public class ResolutionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The class that can't be created
+     */
+    private final Class type;
+
+    /**
+     * Simple Constructor
+     *
+     * @param type  The class that can't be created
+     * @param cause The reason of the failure
+     */
+    public ResolutionException(Class type, Throwable cause) {
+        super("Unable to get an instance of " + type.getName(), cause);
+        this.type = type;
+    }
+
+    /**
+     * Constructor with a custom message
+     *
+     * @param type    The class that can't be created
+     * @param message The detail message
+     * @param cause   The reason of the failure
+     */
+    public ResolutionException(Class type, String message, Throwable cause) {
+        super(message, cause);
+        this.type = type;
+    }
+
+    /**
+     * Get the class that can't be created
+     *
+     * @return The class
+     */
+    public Class getType() {
+        return type;
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.macfja.injector;
+
+/**
+ * ResolutionTimeoutException class.
+ * Thrown when the construction of an instance exceeds its deadline
+ * (see {@link Injector#get(Class, long, java.util.concurrent.TimeUnit)}).
+ *
+ * @author MacFJA
+ */
+public class ResolutionTimeoutException extends ResolutionException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Simple Constructor
+     *
+     * @param type    The class that was being built when the deadline was reached
+     * @param message The detail message
+     */
+    public ResolutionTimeoutException(Class type, String message) {
+        super(type, message, null);
+    }
+}
@@ -0,0 +1,202 @@
+package io.github.macfja.injector;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResolutionTrace class.
+ * One node of the resolution tree recorded by a {@link ResolutionTracer}: the construction of one instance.
+ *
+ * @author MacFJA
+ */
+public class ResolutionTrace {
+    /**
+     * The class built
+     */
+    private final Class type;
+    /**
+     * The node that requested this instance ({@code null} for a root)
+     */
+    private final ResolutionTrace parent;
+    /**
+     * The instances built for this instance
+     */
+    private final List<ResolutionTrace> children = new ArrayList<>();
+    /**
+     * The constructor used ({@code null} for the default constructor)
+     */
+    private Constructor constructor;
+    /**
+     * Start time, in nanoseconds
+     */
+    private final long start;
+    /**
+     * Total time (including children), in nanoseconds
+     */
+    private long total;
+    /**
+     * Time spent to choose the constructor, in nanoseconds
+     */
+    private long reflection;
+    /**
+     * Time spent in the constructor body, in nanoseconds
+     */
+    private long construction;
+    /**
+     * Time spent in properties and setters injection (including children), in nanoseconds
+     */
+    private long injection;
+
+    /**
+     * Simple Constructor
+     *
+     * @param type   The class built
+     * @param parent The node that requested this instance
+     */
+    ResolutionTrace(Class type, ResolutionTrace parent) {
+        this.type = type;
+        this.parent = parent;
+        this.start = System.nanoTime();
+        if (parent != null) {
+            parent.children.add(this);
+        }
+    }
+
+    /**
+     * Record the time spent to choose the constructor
+     *
+     * @param since The start time of the step
+     * @return The current time
+     */
+    long reflection(long since) {
+        long now = System.nanoTime();
+        reflection += now - since;
+        return now;
+    }
+
+    /**
+     * Record the time spent in the constructor body
+     *
+     * @param used  The constructor used
+     * @param since The start time of the step
+     * @return The current time
+     */
+    long construction(Constructor used, long since) {
+        long now = System.nanoTime();
+        constructor = used;
+        construction += now - since;
+        return now;
+    }
+
+    /**
+     * Record the time spent in member injection
+     *
+     * @param since The start time of the step
+     * @return The current time
+     */
+    long injection(long since) {
+        long now = System.nanoTime();
+        injection += now - since;
+        return now;
+    }
+
+    /**
+     * Mark the node as finished
+     */
+    void finish() {
+        total = System.nanoTime() - start;
+    }
+
+    /**
+     * Get the class built
+     *
+     * @return The class
+     */
+    public Class getType() {
+        return type;
+    }
+
+    /**
+     * Get the constructor used
+     *
+     * @return The constructor, {@code null} if the default constructor have been used
+     */
+    public Constructor getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * Get the node that requested this instance
+     *
+     * @return The parent node, {@code null} for a root
+     */
+    public ResolutionTrace getParent() {
+        return parent;
+    }
+
+    /**
+     * Get the instances built for this instance
+     *
+     * @return List of nodes
+     */
+    public List<ResolutionTrace> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Get the total time spent to build the instance (including its dependencies)
+     *
+     * @param unit The unit of the result
+     * @return The duration
+     */
+    public long getTotalTime(TimeUnit unit) {
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time spent to build the instance, excluding its dependencies
+     *
+     * @param unit The unit of the result
+     * @return The duration
+     */
+    public long getSelfTime(TimeUnit unit) {
+        long self = total;
+        for (ResolutionTrace child : children) {
+            self -= child.total;
+        }
+        return unit.convert(Math.max(0, self), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time spent (with reflection) to choose the constructor
+     *
+     * @param unit The unit of the result
+     * @return The duration
+     */
+    public long getReflectionTime(TimeUnit unit) {
+        return unit.convert(reflection, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time spent in the constructor body
+     *
+     * @param unit The unit of the result
+     * @return The duration
+     */
+    public long getConstructionTime(TimeUnit unit) {
+        return unit.convert(construction, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time spent in properties and setters injection (including the dependencies built for them)
+     *
+     * @param unit The unit of the result
+     * @return The duration
+     */
+    public long getInjectionTime(TimeUnit unit) {
+        return unit.convert(injection, TimeUnit.NANOSECONDS);
+    }
+}
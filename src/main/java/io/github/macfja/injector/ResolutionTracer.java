@@ -0,0 +1,217 @@
+package io.github.macfja.injector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ResolutionTracer class.
+ * Record the resolution tree of every instance built by an injector (see {@link Injector#setTracer(ResolutionTracer)}).
+ * When no tracer is set, the injector does not record anything.
+ * <p>
+ * Override {@link #onResolved(ResolutionTrace)} to forward the traces to another tool (JFR events, metrics, ...).
+ * <p>
+ * Only the most recent resolution trees are kept (see {@link #ResolutionTracer(int)}), so a tracer left enabled
+ * in a running application doesn't retain every tree built since it was set.
+ *
+ * @author MacFJA
+ */
+public class ResolutionTracer {
+    /**
+     * Default maximum number of resolution trees kept
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+    /**
+     * The node in construction on the current thread
+     */
+    private final ThreadLocal<ResolutionTrace> current = new ThreadLocal<>();
+    /**
+     * The finished resolution trees, the oldest first
+     */
+    private final Queue<ResolutionTrace> roots = new ConcurrentLinkedQueue<>();
+    /**
+     * Number of resolution trees kept (the size of a concurrent queue is not constant time)
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * Maximum number of resolution trees kept
+     */
+    private final int capacity;
+
+    /**
+     * Create a tracer that keep the {@value #DEFAULT_CAPACITY} most recent resolution trees
+     */
+    public ResolutionTracer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a tracer that keep a limited number of resolution trees: the oldest trees are dropped.
+     * With a capacity of {@code 0}, no tree is kept and {@link #onResolved(ResolutionTrace)} is the only way to get
+     * them.
+     *
+     * @param capacity The maximum number of resolution trees kept
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public ResolutionTracer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Start the recording of an instance construction
+     *
+     * @param type The class to build
+     * @return The new node
+     */
+    ResolutionTrace enter(Class type) {
+        ResolutionTrace trace = new ResolutionTrace(type, current.get());
+        current.set(trace);
+        return trace;
+    }
+
+    /**
+     * End the recording of an instance construction
+     *
+     * @param trace The node to finish
+     */
+    void exit(ResolutionTrace trace) {
+        trace.finish();
+        if (trace.getParent() == null) {
+            current.remove();
+            keep(trace);
+            onResolved(trace);
+        } else {
+            current.set(trace.getParent());
+        }
+    }
+
+    /**
+     * Keep a finished resolution tree, drop the oldest ones above the capacity
+     *
+     * @param root The root of the resolution tree
+     */
+    private void keep(ResolutionTrace root) {
+        if (capacity == 0) {
+            return;
+        }
+        roots.add(root);
+        if (size.incrementAndGet() > capacity && roots.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the maximum number of resolution trees kept
+     *
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Called when a resolution tree is finished.
+     * Do nothing by default.
+     *
+     * @param root The root of the resolution tree
+     */
+    protected void onResolved(ResolutionTrace root) {
+    }
+
+    /**
+     * Get the finished resolution trees (the most recent ones, up to the capacity)
+     *
+     * @return List of the root nodes, the oldest first
+     */
+    public List<ResolutionTrace> getRoots() {
+        return new ArrayList<>(roots);
+    }
+
+    /**
+     * Remove all recorded resolution trees
+     */
+    public void clear() {
+        while (roots.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Get the nodes with the highest self time (time excluding dependencies)
+     *
+     * @param limit The maximum number of nodes
+     * @return List of nodes, the slowest first
+     */
+    public List<ResolutionTrace> getSlowest(int limit) {
+        List<ResolutionTrace> nodes = new ArrayList<>();
+        for (ResolutionTrace root : roots) {
+            collect(root, nodes);
+        }
+        Collections.sort(nodes, new Comparator<ResolutionTrace>() {
+            @Override
+            public int compare(ResolutionTrace first, ResolutionTrace second) {
+                return Long.compare(second.getSelfTime(TimeUnit.NANOSECONDS), first.getSelfTime(TimeUnit.NANOSECONDS));
+            }
+        });
+        return nodes.subList(0, Math.min(limit, nodes.size()));
+    }
+
+    /**
+     * Export the resolution trees in the collapsed stack format (one line per stack: {@code A;B;C 42}),
+     * readable by flame graph tools.
+     * The value of each stack is the self time, in microseconds.
+     *
+     * @return The collapsed stacks
+     */
+    public String toCollapsedStacks() {
+        Map<String, Long> stacks = new LinkedHashMap<>();
+        for (ResolutionTrace root : roots) {
+            collapse(root, "", stacks);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+            builder.append(stack.getKey()).append(' ').append(stack.getValue()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Add a node and all its descendants in a list
+     *
+     * @param node  The node to add
+     * @param nodes The list to fill
+     */
+    private static void collect(ResolutionTrace node, List<ResolutionTrace> nodes) {
+        nodes.add(node);
+        for (ResolutionTrace child : node.getChildren()) {
+            collect(child, nodes);
+        }
+    }
+
+    /**
+     * Add the stack of a node and all its descendants
+     *
+     * @param node   The node to add
+     * @param prefix The stack of the parent node
+     * @param stacks The stacks to fill (stack to self time)
+     */
+    private static void collapse(ResolutionTrace node, String prefix, Map<String, Long> stacks) {
+        String stack = prefix + node.getType().getName();
+        Long previous = stacks.get(stack);
+        long self = node.getSelfTime(TimeUnit.MICROSECONDS);
+        stacks.put(stack, previous == null ? self : previous + self);
+        for (ResolutionTrace child : node.getChildren()) {
+            collapse(child, stack + ';', stacks);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package io.github.macfja.injector;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShutdownTracker class.
+ * Keep track of the singletons built by an injector and of the singletons they depend on,
+ * so they can be closed in reverse dependency order.
+ *
+ * @author MacFJA
+ */
+class ShutdownTracker {
+    /**
+     * Stack (per thread) of the instances in construction, each frame contains the singletons used by the instance
+     * ({@code null} until the instance use a singleton)
+     */
+    private final ThreadLocal<List<Set<Object>>> frames = new ThreadLocal<List<Set<Object>>>() {
+        @Override
+        protected List<Set<Object>> initialValue() {
+            return new ArrayList<>();
+        }
+    };
+    /**
+     * Indicate if the singletons have been closed
+     */
+    private volatile boolean closed = false;
+    /**
+     * Singletons built, with the singletons they depend on
+     */
+    private Map<Object, Set<Object>> dependencies = new IdentityHashMap<>();
+    /**
+     * Singletons built, in creation order
+     */
+    private List<Object> order = new ArrayList<>();
+
+    /**
+     * Create an identity based set
+     *
+     * @return A new empty set
+     */
+    private static Set<Object> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    }
+
+    /**
+     * Get the frame of the instance in construction, create it if needed
+     *
+     * @param stack The stack of the current thread (must not be empty)
+     * @return The singletons used by the instance
+     */
+    private static Set<Object> top(List<Set<Object>> stack) {
+        int index = stack.size() - 1;
+        Set<Object> frame = stack.get(index);
+        if (frame == null) {
+            frame = newIdentitySet();
+            stack.set(index, frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Indicate that an instance construction start on the current thread
+     */
+    void enter() {
+        frames.get().add(null);
+    }
+
+    /**
+     * Indicate that the current instance construction is finished (or failed)
+     *
+     * @param instance The built instance ({@code null} if the construction failed)
+     * @param owned    {@code true} if the instance is a singleton owned by the injector
+     */
+    void exit(Object instance, boolean owned) {
+        List<Set<Object>> stack = frames.get();
+        Set<Object> used = stack.remove(stack.size() - 1);
+        if (instance == null) {
+            return;
+        }
+        if (owned) {
+            synchronized (this) {
+                if (!dependencies.containsKey(instance)) {
+                    dependencies.put(instance, used == null ? Collections.<Object>emptySet() : used);
+                    order.add(instance);
+                }
+            }
+        }
+        if (stack.isEmpty()) {
+            return;
+        }
+        if (owned) {
+            top(stack).add(instance);
+        } else if (used != null) {
+            top(stack).addAll(used);
+        }
+    }
+
+    /**
+     * Indicate that an existing singleton is used by the instance in construction (if any)
+     *
+     * @param instance The singleton
+     */
+    void used(Object instance) {
+        List<Set<Object>> stack = frames.get();
+        if (!stack.isEmpty()) {
+            top(stack).add(instance);
+        }
+    }
+
+    /**
+     * Indicate if the singletons have been closed
+     *
+     * @return {@code true} once {@link #close(long, TimeUnit)} has been called
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Indicate if an instance must be disposed (is {@code AutoCloseable} or have {@code @PreDestroy} methods)
+     *
+     * @param instance The instance
+     * @return {@code true} if the instance must be disposed
+     */
+    private static boolean isDisposable(Object instance) {
+        return instance instanceof AutoCloseable
+                || ClassMetadata.of(instance.getClass()).getPreDestroyMethods().length > 0;
+    }
+
+    /**
+     * Dispose an instance: call its {@code @PreDestroy} methods, then close it if it's {@code AutoCloseable}
+     *
+     * @param instance The instance
+     * @throws Exception if a {@code @PreDestroy} method or the close method throws an exception
+     */
+    private static void dispose(Object instance) throws Exception {
+        Exception failure = null;
+        for (Method method : ClassMetadata.of(instance.getClass()).getPreDestroyMethods()) {
+            try {
+                method.invoke(instance);
+            } catch (InvocationTargetException e) {
+                failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            } catch (IllegalAccessException e) {
+                failure = e;
+            }
+        }
+        if (instance instanceof AutoCloseable) {
+            ((AutoCloseable) instance).close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Dispose all tracked singletons ({@code @PreDestroy} methods, and close for {@code AutoCloseable}).
+     * A singleton is closed only once every singletons that depend on it are closed,
+     * independent singletons are closed in parallel.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return The report of the closing
+     */
+    CloseReport close(long timeout, TimeUnit unit) {
+        closed = true;
+        final Map<Object, Set<Object>> graph;
+        List<Object> nodes;
+        synchronized (this) {
+            graph = dependencies;
+            nodes = order;
+            dependencies = new IdentityHashMap<>();
+            order = new ArrayList<>();
+        }
+
+        final CloseReport report = new CloseReport();
+        if (nodes.isEmpty()) {
+            return report;
+        }
+
+        final Map<Object, AtomicInteger> dependents = new IdentityHashMap<>();
+        for (Object node : nodes) {
+            dependents.put(node, new AtomicInteger());
+        }
+        for (Object node : nodes) {
+            for (Object dependency : graph.get(node)) {
+                if (dependents.containsKey(dependency) && dependency != node) {
+                    dependents.get(dependency).incrementAndGet();
+                }
+            }
+        }
+
+        final CountDownLatch done = new CountDownLatch(nodes.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(nodes.size(), Runtime.getRuntime().availableProcessors()),
+                new CloseThreadFactory()
+        );
+
+        /**
+         * Close a singleton then schedule the singletons it depends on (if they have no more dependents)
+         */
+        class CloseTask implements Runnable {
+            private final Object node;
+
+            CloseTask(Object node) {
+                this.node = node;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    if (isDisposable(node)) {
+                        long start = System.nanoTime();
+                        Throwable error = null;
+                        try {
+                            dispose(node);
+                        } catch (Exception e) {
+                            error = e;
+                        }
+                        report.add(node, System.nanoTime() - start, error);
+                    }
+                } finally {
+                    for (Object dependency : graph.get(node)) {
+                        AtomicInteger remaining = dependents.get(dependency);
+                        if (remaining != null && dependency != node && remaining.decrementAndGet() == 0) {
+                            submit(executor, new CloseTask(dependency));
+                        }
+                    }
+                    done.countDown();
+                }
+            }
+        }
+
+        // Selected before the first task run: a task decrement the counters of its dependencies
+        List<Object> independents = new ArrayList<>();
+        for (int index = nodes.size() - 1; index >= 0; index--) {
+            Object node = nodes.get(index);
+            if (dependents.get(node).get() == 0) {
+                independents.add(node);
+            }
+        }
+        for (Object node : independents) {
+            submit(executor, new CloseTask(node));
+        }
+
+        try {
+            done.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+
+        List<Object> disposable = new ArrayList<>();
+        for (Object node : nodes) {
+            if (isDisposable(node)) {
+                disposable.add(node);
+            }
+        }
+        report.finish(disposable);
+        return report;
+    }
+
+    /**
+     * Submit a task, ignore it if the executor is already stopped (deadline reached)
+     *
+     * @param executor The executor
+     * @param task     The task to run
+     */
+    private static void submit(ExecutorService executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Deadline reached, the instance will be reported as not closed
+        }
+    }
+
+    /**
+     * Create daemon threads, so a blocking close can't prevent the JVM to stop
+     */
+    private static class CloseThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "injector-close-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.macfja.injector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.inject.Inject;
+
+/**
+ * Construction plan benchmark: the same graph built with the generic construction and with the plans.
+ * Not run by the default build, use the {@code benchmark} profile: {@code mvn test -Pbenchmark}.
+ * The number of measured constructions can be changed with the {@code benchmark.iterations} system property.
+ */
+public class HotBindingsBenchmark {
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 200000);
+    private static final int ROUNDS = 5;
+
+    private static volatile Object sink;
+
+    /**
+     * Measure the average time of a get (best round, after the same number of warm up rounds)
+     */
+    private static long measure(Injector injector) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS * 2; round++) {
+            long start = System.nanoTime();
+            for (int index = 0; index < ITERATIONS; index++) {
+                sink = injector.get(TestHBRoot.class);
+            }
+            long elapsed = (System.nanoTime() - start) / ITERATIONS;
+            if (round >= ROUNDS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    private static Injector createInjector(int hotThreshold) {
+        Injector injector = new Injector("io.github");
+        injector.setHotThreshold(hotThreshold);
+        injector.addMapping(TestHBService.class, InjectionUnit.Instantiation.Singleton);
+        return injector;
+    }
+
+    @Test
+    public void testPlanFasterThanGeneric() {
+        long generic = measure(createInjector(0));
+        long planned = measure(createInjector(1));
+        System.out.println("Generic construction: " + generic + " ns/get, construction plan: " + planned + " ns/get");
+        Assert.assertTrue(planned < generic);
+    }
+}
+
+class TestHBLeaf {
+    public TestHBLeaf() {
+    }
+}
+
+class TestHBService {
+    public TestHBService(TestHBLeaf leaf) {
+    }
+}
+
+class TestHBNode {
+    @Inject
+    public TestHBLeaf leaf;
+
+    public TestHBNode(TestHBLeaf first, TestHBLeaf second) {
+    }
+}
+
+class TestHBRoot {
+    TestHBService service;
+
+    public TestHBRoot(TestHBNode node, TestHBLeaf leaf) {
+    }
+
+    @Inject
+    public void setService(TestHBService service) {
+        this.service = service;
+    }
+}
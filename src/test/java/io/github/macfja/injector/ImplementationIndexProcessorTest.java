@@ -0,0 +1,83 @@
+package io.github.macfja.injector;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.inject.Singleton;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class ImplementationIndexProcessorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndex() throws IOException, URISyntaxException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        File source = folder.newFolder("src", "app");
+        write(new File(source, "Service.java"), "package app; public interface Service {}");
+        write(new File(source, "Repository.java"), "package app; public interface Repository {}");
+        write(
+                new File(source, "ServiceImpl.java"),
+                "package app; @javax.inject.Singleton public class ServiceImpl implements Service {"
+                        + " public static class Nested implements Repository {}"
+                        + " public class Inner implements Repository {} }"
+        );
+        write(new File(source, "AbstractRepository.java"), "package app; public abstract class AbstractRepository implements Repository {}");
+        write(new File(source, "SqlRepository.java"), "package app; public class SqlRepository extends AbstractRepository {}");
+        File output = folder.newFolder("classes");
+
+        String classPath = new File(Singleton.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath()
+                + File.pathSeparator
+                + new File(ImplementationIndexProcessor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        int result = compiler.run(null, null, null,
+                "-classpath", classPath,
+                "-processor", ImplementationIndexProcessor.class.getName(),
+                "-Ainjector.packages=app",
+                "-d", output.getPath(),
+                new File(source, "Service.java").getPath(),
+                new File(source, "Repository.java").getPath(),
+                new File(source, "ServiceImpl.java").getPath(),
+                new File(source, "AbstractRepository.java").getPath(),
+                new File(source, "SqlRepository.java").getPath()
+        );
+        Assert.assertEquals(0, result);
+
+        List<String> implementations = Files.readAllLines(
+                new File(output, ImplementationIndex.IMPLEMENTATIONS).toPath(), StandardCharsets.UTF_8
+        );
+        Assert.assertEquals(Arrays.asList(
+                "app.AbstractRepository app.SqlRepository",
+                "app.Repository app.ServiceImpl$Nested",
+                "app.Repository app.SqlRepository",
+                "app.Service app.ServiceImpl"
+        ), implementations);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{output.toURI().toURL()}, null)) {
+            ImplementationIndex index = new ImplementationIndex(loader);
+            Assert.assertEquals("app.ServiceImpl", index.getImplementation("app.Service"));
+            Assert.assertEquals("app.SqlRepository", index.getImplementation("app.AbstractRepository"));
+            Assert.assertNull(index.getImplementation("app.Repository"));
+            Assert.assertTrue(index.isSingleton("app.ServiceImpl"));
+            Assert.assertFalse(index.isSingleton("app.SqlRepository"));
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
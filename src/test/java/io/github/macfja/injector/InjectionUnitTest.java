@@ -1,11 +1,16 @@
 package io.github.macfja.injector;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class InjectionUnitTest {
     private static Injector parent;
@@ -73,6 +78,73 @@ public class InjectionUnitTest {
         }
     }
 
+    @Test
+    public void testConstructorTypeSoftSingleton() {
+        InjectionUnit unit = new InjectionUnit(TestIUNoConstructor.class, InjectionUnit.Instantiation.SoftSingleton);
+        try {
+            Object first = unit.get(parent);
+            Assert.assertNotNull(first);
+            Assert.assertSame(first, unit.get(parent));
+            Assert.assertEquals(0, unit.getRebuildCount());
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            Assert.fail();
+        }
+    }
+
+    @Test
+    public void testConstructorTypeWeakSingletonRebuild() {
+        InjectionUnit unit = new InjectionUnit(TestIUNoConstructor.class, InjectionUnit.Instantiation.WeakSingleton);
+        try {
+            WeakReference<Object> first = new WeakReference<>(unit.get(parent));
+            Assert.assertNotNull(first.get());
+            Assert.assertEquals(0, unit.getRebuildCount());
+
+            for (int attempt = 0; attempt < 10 && first.get() != null; attempt++) {
+                System.gc();
+            }
+            Assume.assumeTrue(first.get() == null);
+
+            Assert.assertNotNull(unit.get(parent));
+            Assert.assertEquals(1, unit.getRebuildCount());
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            Assert.fail();
+        }
+    }
+
+    @Test
+    public void testConstructorTypePrototype() {
+        InjectionUnit cloneUnit = new InjectionUnit(TestIUCloneable.class, InjectionUnit.Instantiation.Prototype);
+        InjectionUnit copyUnit = new InjectionUnit(TestIUCopyable.class, InjectionUnit.Instantiation.Prototype);
+        int cloneCount = TestIUCloneable.count;
+        int copyCount = TestIUCopyable.count;
+        try {
+            TestIUCloneable firstClone = (TestIUCloneable) cloneUnit.get(parent);
+            TestIUCloneable secondClone = (TestIUCloneable) cloneUnit.get(parent);
+            Assert.assertNotSame(firstClone, secondClone);
+            Assert.assertNotNull(firstClone.injected);
+            Assert.assertSame(firstClone.injected, secondClone.injected);
+            Assert.assertEquals(cloneCount + 1, TestIUCloneable.count);
+
+            TestIUCopyable firstCopy = (TestIUCopyable) copyUnit.get(parent);
+            TestIUCopyable secondCopy = (TestIUCopyable) copyUnit.get(parent);
+            Assert.assertNotSame(firstCopy, secondCopy);
+            Assert.assertEquals(firstCopy.value, secondCopy.value);
+            Assert.assertEquals(copyCount + 1, TestIUCopyable.count);
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            Assert.fail();
+        }
+
+        InjectionUnit unit = new InjectionUnit(TestIUSingleton.class, InjectionUnit.Instantiation.Prototype);
+        try {
+            unit.get(parent);
+            Assert.fail();
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            Assert.fail();
+        } catch (InstantiationException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
     @Test
     public void testStaticMethodIsInstantiable() {
         Assert.assertTrue(InjectionUnit.isInstantiable(TestIUSingleton.class, parent));
@@ -129,6 +201,46 @@ public class InjectionUnitTest {
         }
     }
 
+    @Test
+    public void testConstructorTypeStriped() throws InterruptedException {
+        final Injector injector = new Injector("io.github");
+        injector.addMapping(TestIUCounter.class, InjectionUnit.Instantiation.Striped);
+        final int threads = 8;
+        final int increments = 1000;
+
+        TestIUCounter first = injector.get(TestIUCounter.class);
+        // Always the same instance on a thread
+        Assert.assertSame(first, injector.get(TestIUCounter.class));
+        first.increment();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int index = 0; index < threads; index++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int count = 0; count < increments; count++) {
+                        injector.<TestIUCounter>get(TestIUCounter.class).increment();
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<TestIUCounter> stripes = injector.getStripes(TestIUCounter.class);
+        Assert.assertFalse(stripes.isEmpty());
+        Assert.assertTrue(stripes.size() <= Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        long total = 0;
+        for (TestIUCounter stripe : stripes) {
+            total += stripe.get();
+        }
+        Assert.assertEquals(threads * increments + 1, total);
+        Assert.assertTrue(injector.getStripes(TestIUSingleton.class).isEmpty());
+    }
+
     @Test
     public void testMethodIsInstantiable() {
         InjectionUnit unit = new InjectionUnit(TestIUSingleton.class, InjectionUnit.Instantiation.Singleton);
@@ -147,6 +259,24 @@ public class InjectionUnitTest {
             Assert.fail();
         }
     }
+
+    @Test
+    public void testMethodCloneStriped() {
+        InjectionUnit unit = new InjectionUnit(TestIUCounter.class, InjectionUnit.Instantiation.Striped);
+        try {
+            Object built = unit.get(parent);
+            InjectionUnit clone = unit.clone();
+            Assert.assertSame(built, clone.get(parent));
+
+            // The stripes built after the clone are not shared
+            InjectionUnit fresh = new InjectionUnit(TestIUCounter.class, InjectionUnit.Instantiation.Striped);
+            InjectionUnit freshClone = fresh.clone();
+            Assert.assertNotNull(freshClone.get(parent));
+            Assert.assertNull(fresh.getBuilt());
+        } catch (CloneNotSupportedException | IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            Assert.fail();
+        }
+    }
 }
 
 class TestIUSingleton {
@@ -165,6 +295,21 @@ class TestIUSingleton {
     }
 }
 
+class TestIUCounter {
+    private final AtomicLong value = new AtomicLong();
+
+    public TestIUCounter() {
+    }
+
+    void increment() {
+        value.incrementAndGet();
+    }
+
+    long get() {
+        return value.get();
+    }
+}
+
 class TestIUNewInstance {
     private static int count = 0;
 
@@ -197,4 +342,33 @@ class TestIUNoConstructor {
 class TestIUMultipleParamConstructor {
     public TestIUMultipleParamConstructor(TestIUNewInstance instance1, TestIUNewInstance instance2) {
     }
-}
\ No newline at end of file
+}
+
+class TestIUCloneable implements Cloneable {
+    static int count = 0;
+    @javax.inject.Inject
+    public TestIUNewInstance injected;
+
+    public TestIUCloneable() {
+        count++;
+    }
+
+    @Override
+    public TestIUCloneable clone() throws CloneNotSupportedException {
+        return (TestIUCloneable) super.clone();
+    }
+}
+
+class TestIUCopyable {
+    static int count = 0;
+    final Object value;
+
+    public TestIUCopyable() {
+        count++;
+        value = new Object();
+    }
+
+    public TestIUCopyable(TestIUCopyable template) {
+        value = template.value;
+    }
+}
@@ -0,0 +1,315 @@
+package io.github.macfja.injector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency stress tests.
+ * Not run by the default build, use the {@code stress} profile: {@code mvn test -Pstress}.
+ * The number of threads and iterations can be changed with the {@code stress.threads}
+ * and {@code stress.iterations} system properties.
+ */
+public class InjectorStressTest {
+    private static final int THREADS = Integer.getInteger(
+            "stress.threads",
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2)
+    );
+    private static final int ITERATIONS = Integer.getInteger("stress.iterations", 10000);
+
+    /**
+     * Run the same task on all threads, all threads start at the same time.
+     * Rethrow the first error of a task.
+     */
+    private static <T> List<T> hammer(int threads, final Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() throws Exception {
+                        start.await();
+                        return task.call();
+                    }
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get(2, TimeUnit.MINUTES));
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw (Exception) e.getCause();
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSingletonUniqueness() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            final Injector injector = new Injector("io.github");
+            injector.addMapping(TestSTSlowSingleton.class, InjectionUnit.Instantiation.Singleton);
+            TestSTSlowSingleton.created.set(0);
+
+            List<Object> instances = hammer(THREADS, new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return injector.get(TestSTSlowSingleton.class);
+                }
+            });
+
+            Set<Object> unique = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            unique.addAll(instances);
+            Assert.assertEquals(1, unique.size());
+            Assert.assertEquals(1, TestSTSlowSingleton.created.get());
+        }
+    }
+
+    @Test
+    public void testNoPartiallyBuiltSingleton() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            final Injector injector = new Injector("io.github");
+            injector.addMapping(TestSTInjected.class, InjectionUnit.Instantiation.Singleton);
+
+            hammer(THREADS, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int index = 0; index < 100; index++) {
+                        TestSTInjected instance = injector.get(TestSTInjected.class);
+                        Assert.assertTrue(instance.isComplete());
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testMemberInjection() throws Exception {
+        final Injector injector = new Injector("io.github");
+        injector.addMapping(TestSTSlowSingleton.class, InjectionUnit.Instantiation.Singleton);
+
+        hammer(THREADS, new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (int index = 0; index < ITERATIONS / 10; index++) {
+                    TestSTInjected instance = new TestSTInjected();
+                    injector.injectIntoProperties(instance);
+                    injector.injectIntoSetters(instance);
+                    Assert.assertTrue(instance.isComplete());
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testAddMappingDuringReads() throws Exception {
+        final Injector injector = new Injector("io.github");
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        hammer(THREADS, new Callable<Void>() {
+            @Override
+            public Void call() {
+                if (threadIndex.getAndIncrement() == 0) {
+                    for (int index = 0; index < ITERATIONS; index++) {
+                        injector.addMapping(
+                                TestSTInjected.class,
+                                index % 2 == 0
+                                        ? InjectionUnit.Instantiation.Singleton
+                                        : InjectionUnit.Instantiation.NewInstance
+                        );
+                        injector.addMapping(new TestSTSlowSingleton());
+                    }
+                    running.set(false);
+                    return null;
+                }
+                while (running.get()) {
+                    TestSTInjected instance = injector.get(TestSTInjected.class);
+                    Assert.assertNotNull(instance);
+                    Assert.assertTrue(instance.isComplete());
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testAtomicBatchSwap() throws Exception {
+        final Injector injector = new Injector("io.github");
+        final BindingBatch first = new BindingBatch()
+                .addMapping(TestSTLeft.class, new InjectionUnit(new TestSTLeft(1)))
+                .addMapping(TestSTRight.class, new InjectionUnit(new TestSTRight(1)));
+        final BindingBatch second = new BindingBatch()
+                .addMapping(TestSTLeft.class, new InjectionUnit(new TestSTLeft(2)))
+                .addMapping(TestSTRight.class, new InjectionUnit(new TestSTRight(2)));
+        injector.apply(first);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger threadIndex = new AtomicInteger();
+
+        hammer(THREADS, new Callable<Void>() {
+            @Override
+            public Void call() {
+                if (threadIndex.getAndIncrement() == 0) {
+                    for (int index = 0; index < ITERATIONS; index++) {
+                        injector.apply(index % 2 == 0 ? second : first);
+                    }
+                    running.set(false);
+                    return null;
+                }
+                while (running.get()) {
+                    TestSTPair pair = injector.get(TestSTPair.class);
+                    Assert.assertNotNull(pair);
+                    Assert.assertEquals(pair.left.version, pair.right.version);
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testGetWithParamsIsolation() throws Exception {
+        final Injector injector = new Injector("io.github");
+        final AtomicInteger counter = new AtomicInteger();
+
+        hammer(THREADS, new Callable<Void>() {
+            @Override
+            public Void call() {
+                for (int index = 0; index < ITERATIONS / 10; index++) {
+                    Integer value = counter.incrementAndGet();
+                    TestSTWithParam instance = injector.get(TestSTWithParam.class, value);
+                    Assert.assertNotNull(instance);
+                    Assert.assertSame(value, instance.getValue());
+                }
+                return null;
+            }
+        });
+
+        Assert.assertFalse(injector.isInjectable(TestSTWithParam.class));
+    }
+
+    @Test
+    public void testScalability() throws Exception {
+        final Injector injector = new Injector("io.github");
+        injector.addMapping(TestSTSlowSingleton.class, InjectionUnit.Instantiation.Singleton);
+        injector.get(TestSTSlowSingleton.class);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        StringBuilder report = new StringBuilder("Injector.get throughput (TestSTInjected, NewInstance):\n");
+        for (int threads = 1; threads <= cores; threads = threads < cores && threads * 2 > cores ? cores : threads * 2) {
+            final int perThread = ITERATIONS;
+            long start = System.nanoTime();
+            hammer(threads, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int index = 0; index < perThread; index++) {
+                        injector.get(TestSTInjected.class);
+                    }
+                    return null;
+                }
+            });
+            double throughput = (double) threads * perThread / ((System.nanoTime() - start) / 1e9);
+            if (threads == 1) {
+                single = throughput;
+            }
+            report.append(String.format("  %3d thread(s): %12.0f get/s (x%.2f)%n", threads, throughput, throughput / single));
+            Assert.assertTrue(throughput > 0);
+            if (threads == cores) {
+                break;
+            }
+        }
+        System.out.print(report);
+    }
+}
+
+class TestSTSlowSingleton {
+    static final AtomicInteger created = new AtomicInteger();
+
+    public TestSTSlowSingleton() {
+        created.incrementAndGet();
+        Thread.yield();
+    }
+}
+
+class TestSTInjected {
+    @Inject
+    public TestSTSlowSingleton property;
+    private TestSTSlowSingleton setterValue;
+
+    public TestSTInjected() {
+    }
+
+    @Inject
+    public void setSetterValue(TestSTSlowSingleton setterValue) {
+        this.setterValue = setterValue;
+    }
+
+    public boolean isComplete() {
+        return property != null && setterValue != null;
+    }
+}
+
+class TestSTWithParam {
+    private final Integer value;
+
+    public TestSTWithParam(Integer value) {
+        this.value = value;
+    }
+
+    public Integer getValue() {
+        return value;
+    }
+}
+
+class TestSTLeft {
+    final int version;
+
+    TestSTLeft(int version) {
+        this.version = version;
+    }
+}
+
+class TestSTRight {
+    final int version;
+
+    TestSTRight(int version) {
+        this.version = version;
+    }
+}
+
+class TestSTPair {
+    final TestSTLeft left;
+    final TestSTRight right;
+
+    public TestSTPair(TestSTLeft left, TestSTRight right) {
+        Thread.yield();
+        this.left = left;
+        this.right = right;
+    }
+}
@@ -3,15 +3,30 @@ package io.github.macfja.injector;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class InjectorTest {
     @Test
@@ -127,6 +142,79 @@ public class InjectorTest {
         Assert.assertNotNull(injector.get(TestIJavaPackage.class, 10));
     }
 
+    @Test
+    public void testPropertyStrict() {
+        Injector injector = new Injector("io.github");
+        Assert.assertFalse(injector.getStrict());
+        injector.setStrict(true);
+        Assert.assertTrue(injector.getStrict());
+
+        ResolutionException first = null;
+        try {
+            injector.get(TestIJavaPackage.class);
+            Assert.fail();
+        } catch (ResolutionException e) {
+            Assert.assertEquals(TestIJavaPackage.class, e.getType());
+            first = e;
+        }
+        try {
+            injector.get(TestIJavaPackage.class);
+            Assert.fail();
+        } catch (ResolutionException e) {
+            // Known failure: a new exception with the same cause
+            Assert.assertNotSame(first, e);
+            Assert.assertEquals(TestIJavaPackage.class, e.getType());
+            Assert.assertSame(first.getCause(), e.getCause());
+        }
+
+        injector.addMapping(10);
+        Assert.assertNotNull(injector.get(TestIJavaPackage.class));
+    }
+
+    @Test
+    public void testMethodGetFailureCached() {
+        Injector injector = new Injector("io.github");
+        injector.setFailureLogInterval(1, TimeUnit.HOURS);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Assert.assertNull(injector.get(TestIJavaPackage.class));
+        }
+        injector.addMapping(10);
+        Assert.assertNotNull(injector.get(TestIJavaPackage.class));
+    }
+
+    @Test
+    public void testMethodGetWithDeadline() {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestISlow.class, InjectionUnit.Instantiation.Singleton);
+        try {
+            injector.get(TestISlowHolder.class, 10, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (ResolutionTimeoutException e) {
+            Assert.assertEquals(TestISlow.class, e.getType());
+            Assert.assertTrue(e.getMessage().contains(TestISlowHolder.class.getName()));
+        }
+
+        // The singleton have been completed, and is not rebuilt
+        int count = TestISlow.count;
+        Assert.assertNotNull(injector.get(TestISlowHolder.class, 10, TimeUnit.SECONDS));
+        Assert.assertEquals(count, TestISlow.count);
+        Assert.assertNull(injector.getDeadline());
+    }
+
+    @Test
+    public void testDeadlineReachedBeforeBuilding() {
+        Deadline deadline = new Deadline(System.nanoTime() - 1);
+        for (Class type : Arrays.<Class>asList(TestISlowHolder.class, TestISlow.class)) {
+            try {
+                deadline.enter(type);
+                Assert.fail();
+            } catch (ResolutionTimeoutException e) {
+                // The class not built is not left in the path of the next failure
+                Assert.assertTrue(e.getMessage().endsWith("(" + type.getName() + ")"));
+            }
+        }
+    }
+
     @Test
     public void testInjectIntoProperties() {
         Injector injector = new Injector("io.github");
@@ -187,6 +275,57 @@ public class InjectorTest {
         Assert.assertNull(testIProperties.getPrivateProp());
     }
 
+    @Test
+    public void testInjectIntoMethodNameCached() {
+        Injector injector = new Injector("io.github");
+        TestIDispatcher dispatcher = new TestIDispatcher();
+        try {
+            Object first = injector.injectIntoMethodName(dispatcher, "handle");
+            Object second = injector.injectIntoMethodName(dispatcher, "handle");
+            Assert.assertTrue(first instanceof TestISingleton);
+            Assert.assertNotSame(first, second);
+
+            TestISingleton singleton = new TestISingleton();
+            injector.addMapping(singleton);
+            Assert.assertSame(singleton, injector.injectIntoMethodName(dispatcher, "handle"));
+            Assert.assertNull(injector.injectIntoMethodName(dispatcher, "handleVoid"));
+            Assert.assertEquals(1, dispatcher.voidCalls);
+        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
+            Assert.fail();
+        }
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                injector.injectIntoMethodName(dispatcher, "missing");
+                Assert.fail();
+            } catch (InvocationTargetException | IllegalAccessException e) {
+                Assert.fail();
+            } catch (NoSuchMethodException e) {
+                Assert.assertTrue(true);
+            }
+        }
+
+        try {
+            injector.injectIntoMethodName(dispatcher, "fail");
+            Assert.fail();
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // The mapped instance doesn't match the parameter: same error as the reflection
+        injector.addMapping(TestISingleton.class, new InjectionUnit("not a singleton"));
+        try {
+            injector.injectIntoMethodName(dispatcher, "handle");
+            Assert.fail();
+        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getCause() instanceof ClassCastException);
+        }
+    }
+
     @Test
     public void testMethodInjectSetters() {
         Injector injector = new Injector("io.github");
@@ -200,6 +339,20 @@ public class InjectorTest {
         Assert.assertNull(testIProperties.getPrivateProp());
     }
 
+    @Test
+    public void testSharedClassMetadata() {
+        Injector first = new Injector("io.github");
+        Injector second = new Injector("io.github");
+        first.injectIntoProperties(new TestIInjections());
+        second.injectIntoSetters(new TestIInjections());
+
+        ClassMetadata metadata = ClassMetadata.of(TestIInjections.class);
+        Assert.assertSame(metadata, ClassMetadata.of(TestIInjections.class));
+        Assert.assertEquals(4, metadata.getInjectableFields().length);
+        Assert.assertEquals(4, metadata.getInjectableSetters().length);
+        Assert.assertEquals(TestISingleton.class, metadata.getSetterParameter(0));
+    }
+
     @Test
     public void testMethodIsMethodInjectable() {
         Injector injector = new Injector("io.github");
@@ -242,6 +395,397 @@ public class InjectorTest {
         Assert.assertFalse(injector.getInjectSetters());
     }
 
+    @Test
+    public void testMethodAddMultiMapping() {
+        Injector injector = new Injector("io.github");
+        Assert.assertTrue(injector.getAll(TestIPlugin.class).isEmpty());
+
+        injector.addMultiMapping(TestIPlugin.class, new InjectionUnit(TestIPluginA.class, InjectionUnit.Instantiation.Singleton));
+        injector.addMultiMapping(TestIPlugin.class, new InjectionUnit(TestIPluginB.class, InjectionUnit.Instantiation.NewInstance));
+
+        List<TestIPlugin> plugins = injector.getAll(TestIPlugin.class);
+        Assert.assertEquals(2, plugins.size());
+        Assert.assertTrue(plugins.get(0) instanceof TestIPluginA);
+        Assert.assertTrue(plugins.get(1) instanceof TestIPluginB);
+
+        List<TestIPlugin> again = injector.getAll(TestIPlugin.class);
+        Assert.assertSame(plugins.get(0), again.get(0));
+        Assert.assertNotSame(plugins.get(1), again.get(1));
+
+        TestIPluginHost host = injector.get(TestIPluginHost.class);
+        Assert.assertNotNull(host);
+        Assert.assertEquals(2, host.list.size());
+        Assert.assertEquals(2, host.set.size());
+        Assert.assertEquals(2, host.array.length);
+        Assert.assertSame(plugins.get(0), host.array[0]);
+    }
+
+    @Test
+    public void testMethodAddMultiMappingPrecomputed() {
+        Injector injector = new Injector("io.github");
+        injector.addMultiMapping(TestIPlugin.class, new InjectionUnit(TestIPluginA.class, InjectionUnit.Instantiation.Singleton));
+        injector.addMultiMapping(TestIPlugin.class, new InjectionUnit(new TestIPluginB()));
+
+        List<TestIPlugin> plugins = injector.getAll(TestIPlugin.class);
+        Assert.assertSame(plugins, injector.getAll(TestIPlugin.class));
+        try {
+            plugins.add(new TestIPluginA());
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testMethodApply() {
+        Injector injector = new Injector("io.github");
+        TestIDispatcher dispatcher = new TestIDispatcher();
+        try {
+            injector.injectIntoMethodName(dispatcher, "handlePlugin");
+            Assert.fail();
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            Assert.fail();
+        } catch (NoSuchMethodException e) {
+            Assert.assertTrue(true);
+        }
+
+        TestIPluginA pluginA = new TestIPluginA();
+        injector.apply(new BindingBatch()
+                .addMapping(TestIPlugin.class, new InjectionUnit(pluginA))
+                .addMapping(TestISingleton.class, InjectionUnit.Instantiation.Singleton));
+        Assert.assertSame(pluginA, injector.get(TestIPlugin.class));
+        Assert.assertSame(injector.get(TestISingleton.class), injector.get(TestISingleton.class));
+        try {
+            Assert.assertSame(pluginA, injector.injectIntoMethodName(dispatcher, "handlePlugin"));
+        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
+            Assert.fail();
+        }
+
+        // The injection unit resolved for the parameter follows the mapping
+        TestIPluginB pluginB = new TestIPluginB();
+        injector.addMapping(TestIPlugin.class, new InjectionUnit(pluginB));
+        try {
+            Assert.assertSame(pluginB, injector.injectIntoMethodName(dispatcher, "handlePlugin"));
+        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
+            Assert.fail();
+        }
+
+        injector.apply(new BindingBatch()
+                .removeMapping(TestIPlugin.class)
+                .addMapping(TestIPlugin.class, InjectionUnit.Instantiation.NewInstance)
+                .removeMapping(TestIPlugin.class));
+        Assert.assertFalse(injector.isInjectable(TestIPlugin.class));
+        Assert.assertNull(injector.get(TestIPlugin.class));
+    }
+
+    @Test
+    public void testOverriddenLifecycleCallbacks() {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestILifecycleOverride.class, InjectionUnit.Instantiation.Singleton);
+        TestILifecycle.events.clear();
+
+        Assert.assertNotNull(injector.get(TestILifecycleOverride.class));
+        Assert.assertEquals(Collections.singletonList("override-init"), TestILifecycle.events);
+
+        // The override of the @PreDestroy method isn't annotated: no method is called
+        injector.close(5, TimeUnit.SECONDS);
+        Assert.assertEquals(Collections.singletonList("override-init"), TestILifecycle.events);
+    }
+
+    @Test
+    public void testMethodClose() {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestIClosePool.class, InjectionUnit.Instantiation.Singleton);
+        injector.addMapping(TestICloseClient.class, InjectionUnit.Instantiation.Singleton);
+        TestICloseClient.closed.clear();
+
+        TestICloseClient client = injector.get(TestICloseClient.class);
+        Assert.assertNotNull(client);
+
+        CloseReport report = injector.close(5, TimeUnit.SECONDS);
+        Assert.assertTrue(report.isComplete());
+        Assert.assertEquals(2, report.getEntries().size());
+        Assert.assertTrue(report.isClosed(client));
+        Assert.assertEquals(Arrays.asList("client", "pool"), TestICloseClient.closed);
+
+        report = injector.close(5, TimeUnit.SECONDS);
+        Assert.assertEquals(0, report.getEntries().size());
+
+        try {
+            injector.get(TestICloseClient.class);
+            Assert.fail("A closed injector must not return its closed singletons");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("The injector is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCloseTimeoutReportIsFinal() throws InterruptedException {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestISlowDestroy.class, InjectionUnit.Instantiation.Singleton);
+        TestISlowDestroy instance = injector.get(TestISlowDestroy.class);
+
+        CloseReport report = injector.close(20, TimeUnit.MILLISECONDS);
+        Assert.assertFalse(report.isComplete());
+        Assert.assertEquals(Collections.<Object>singletonList(instance), report.getNotClosed());
+        Assert.assertFalse(report.isClosed(instance));
+
+        // The @PreDestroy method ends after the deadline: the report doesn't change
+        Assert.assertTrue(instance.finished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        Assert.assertFalse(report.isClosed(instance));
+        Assert.assertEquals(0, report.getEntries().size());
+        Assert.assertEquals(Collections.<Object>singletonList(instance), report.getNotClosed());
+    }
+
+    @Test
+    public void testLifecycleCallbacks() {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestILifecycle.class, InjectionUnit.Instantiation.Singleton);
+        TestILifecycle.events.clear();
+
+        TestILifecycle instance = injector.get(TestILifecycle.class);
+        Assert.assertEquals(Arrays.asList("parent-init", "init:true"), TestILifecycle.events);
+
+        CloseReport report = injector.close(5, TimeUnit.SECONDS);
+        Assert.assertTrue(report.isClosed(instance));
+        Assert.assertEquals(
+                Arrays.asList("parent-init", "init:true", "destroy", "parent-destroy"),
+                TestILifecycle.events
+        );
+    }
+
+    @Test
+    public void testAutoBinding() {
+        Injector injector = new Injector("io.github");
+        Assert.assertNull(injector.get(TestIAutoService.class));
+
+        injector.setAutoBinding(true);
+        TestIAutoService service = injector.get(TestIAutoService.class);
+        Assert.assertTrue(service instanceof TestIAutoServiceImpl);
+        Assert.assertSame(service, injector.get(TestIAutoService.class));
+        Assert.assertSame(service, injector.get(TestIAutoServiceImpl.class));
+        Assert.assertTrue(injector.isInjectable(TestIAutoService.class));
+        // Ambiguous: two implementations in the index
+        Assert.assertFalse(injector.isInjectable(TestIPlugin.class));
+        Assert.assertNull(injector.get(TestIPlugin.class));
+
+        // Explicit mapping take precedence
+        injector.addMapping(TestIPlugin.class, new InjectionUnit(TestIPluginB.class, InjectionUnit.Instantiation.NewInstance));
+        Assert.assertTrue(injector.get(TestIPlugin.class) instanceof TestIPluginB);
+    }
+
+    @Test
+    public void testDependencyGraph() {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestIGraphService.class, InjectionUnit.Instantiation.Singleton);
+        int built = TestIGraphLeaf.count;
+
+        DependencyGraph graph = injector.getDependencyGraph(TestIGraphRoot.class);
+        Assert.assertTrue(graph.isResolvable());
+        Assert.assertEquals(5, graph.getNodeCount());
+        Assert.assertEquals(3, graph.getDepth());
+        // The root and its two leaves, the leaf of the singleton is built only once
+        Assert.assertEquals(3, graph.getConstructionsPerCall());
+        Assert.assertEquals(Collections.<Class>singleton(TestIGraphService.class), graph.getSingletons());
+        Assert.assertEquals(3, graph.getRoot().getChildren().size());
+        Assert.assertFalse(graph.getRoot().getChildren().get(2).isBuilt());
+        Assert.assertEquals(built, TestIGraphLeaf.count);
+        Assert.assertTrue(graph.toDot().contains("n0 -> n1;"));
+        Assert.assertTrue(graph.toJson().startsWith("{\"root\":0,\"nodeCount\":5,\"depth\":3,\"constructionsPerCall\":3"));
+
+        Assert.assertNotNull(injector.get(TestIGraphRoot.class));
+        Assert.assertEquals(built + 3, TestIGraphLeaf.count);
+        // The singleton and its dependencies are shared
+        graph = injector.getDependencyGraph(TestIGraphRoot.class);
+        Assert.assertTrue(graph.getRoot().getChildren().get(2).isBuilt());
+        DependencyGraph other = injector.getDependencyGraph(TestIGraphService.class);
+        Assert.assertEquals(0, other.getConstructionsPerCall());
+
+        Assert.assertFalse(injector.getDependencyGraph(TestIPrimitive.class).isResolvable());
+    }
+
+    @Test
+    public void testDependencyGraphSingletonCycle() {
+        Injector injector = new Injector("io.github");
+        injector.addMapping(TestIGraphCycleA.class, InjectionUnit.Instantiation.Singleton);
+
+        DependencyGraph graph = injector.getDependencyGraph(TestIGraphCycleA.class);
+        Assert.assertFalse(graph.isResolvable());
+        Assert.assertEquals(3, graph.getDepth());
+        DependencyGraph.Node cycle = graph.getRoot().getChildren().get(0).getChildren().get(0);
+        Assert.assertTrue(cycle.isCycle());
+        Assert.assertNotSame(graph.getRoot(), cycle);
+        Assert.assertTrue(graph.toJson().contains("\"cycle\":true"));
+    }
+
+    @Test
+    public void testHotBindings() {
+        Injector injector = new Injector("io.github");
+        injector.setHotThreshold(2);
+        injector.addMapping(TestIPlugin.class, new InjectionUnit(TestIPluginA.class, InjectionUnit.Instantiation.NewInstance));
+        injector.addMapping(TestIHot.class, InjectionUnit.Instantiation.NewInstance);
+
+        List<Boolean> planned = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            TestIHot hot = injector.get(TestIHot.class);
+            Assert.assertTrue(hot.plugin instanceof TestIPluginA);
+            Assert.assertNotNull(hot.singleton);
+            Assert.assertNotNull(hot.leaf);
+            Assert.assertTrue(hot.initialized);
+            planned.add(hot.planned);
+        }
+        Assert.assertEquals(Arrays.asList(false, true, true, true), planned);
+
+        // Unrelated changes and clones keep the plan
+        injector.addMapping(TestIGraphService.class, InjectionUnit.Instantiation.Singleton);
+        injector.setConfig(ConfigSnapshot.of(Collections.singletonMap("unrelated", "value")));
+        Assert.assertTrue(injector.get(TestIHot.class).planned);
+        Assert.assertTrue(injector.get(TestIHot.class, new TestIPluginB()).planned);
+        Assert.assertTrue(injector.get(TestIHot.class).planned);
+
+        // The plan is rebuilt with the new mapping
+        injector.addMapping(TestIPlugin.class, new InjectionUnit(TestIPluginB.class, InjectionUnit.Instantiation.NewInstance));
+        for (int index = 0; index < 3; index++) {
+            Assert.assertTrue(injector.get(TestIHot.class).plugin instanceof TestIPluginB);
+        }
+        injector.setInjectProperties(false);
+        for (int index = 0; index < 3; index++) {
+            Assert.assertNull(injector.get(TestIHot.class).singleton);
+        }
+
+        injector.setTracer(new ResolutionTracer());
+        Assert.assertFalse(injector.get(TestIHot.class).planned);
+        injector.setTracer(null);
+
+        // The mapped instance doesn't match the parameter: same error with and without the plan
+        injector.addMapping(TestIPlugin.class, new InjectionUnit("not a plugin"));
+        for (int index = 0; index < 3; index++) {
+            try {
+                injector.get(TestIHot.class);
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(true);
+            }
+        }
+    }
+
+    @Test
+    public void testQualifiedBindings() throws NoSuchFieldException {
+        Injector injector = new Injector("io.github");
+        TestIDataSource primary = new TestIDataSource("primary");
+        TestIDataSource replica = new TestIDataSource("replica");
+        Assert.assertNull(injector.get(TestIRepository.class));
+
+        injector.addMapping(TestIDataSource.class, Names.named("primary"), new InjectionUnit(primary));
+        injector.addMapping(TestIDataSource.class, TestIReplica.class, new InjectionUnit(replica));
+        TestIRepository repository = injector.get(TestIRepository.class);
+        Assert.assertSame(primary, repository.primary);
+        Assert.assertSame(replica, repository.replica);
+        // Not mapped: the setter is skipped
+        Assert.assertNull(repository.backup);
+        Assert.assertSame(primary, injector.get(TestIDataSource.class, Names.named("primary")));
+        Assert.assertNull(injector.get(TestIDataSource.class, Names.named("backup")));
+
+        injector.addMapping(TestIDataSource.class, Names.named("backup"), new InjectionUnit(TestIDataSource.class, InjectionUnit.Instantiation.Singleton));
+        repository = injector.get(TestIRepository.class);
+        Assert.assertSame(primary, repository.primary);
+        Assert.assertSame(injector.get(TestIDataSource.class, Names.named("backup")), repository.backup);
+
+        // Same equals/hashCode as the annotation of the injection point, and same interned key
+        Annotation named = TestIRepository.class.getConstructors()[0].getParameterAnnotations()[0][0];
+        Assert.assertEquals(named, Names.named("primary"));
+        Assert.assertEquals(Names.named("primary"), named);
+        Assert.assertEquals(named.hashCode(), Names.named("primary").hashCode());
+        Assert.assertSame(
+                Key.of(TestIDataSource.class, Names.named("primary")),
+                ClassMetadata.of(TestIRepository.class).getConstructorQualifiers(0)[0]
+        );
+
+        try {
+            injector.addMapping(TestIDataSource.class, Inject.class, new InjectionUnit(primary));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // Not a qualifier
+        }
+        try {
+            injector.addMapping(TestIDataSource.class, TestIRegion.class, new InjectionUnit(primary));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // The injection points are qualified by the annotation values: @TestIRegion would never match
+        }
+    }
+
+    @Test
+    public void testConfigInjection() {
+        Injector injector = new Injector("io.github");
+        Properties properties = new Properties();
+        properties.setProperty("pool.size", "8");
+        properties.setProperty("pool.name", "main");
+        properties.setProperty("pool.timeout", "30000");
+        properties.setProperty("pool.enabled", "true");
+        injector.setConfig(ConfigSnapshot.of(properties));
+
+        TestIPoolConfig pool = injector.get(TestIPoolConfig.class);
+        Assert.assertEquals(8, pool.size);
+        Assert.assertEquals("main", pool.name);
+        Assert.assertEquals(30000L, pool.timeout);
+        Assert.assertEquals(Boolean.TRUE, pool.enabled);
+        Assert.assertEquals(Integer.valueOf(8), injector.get(Integer.class, Names.named("pool.size")));
+        Assert.assertEquals("8", injector.get(String.class, Names.named("pool.size")));
+
+        // Replaced atomically, the values of the previous configuration are removed
+        Map<String, String> values = new HashMap<>();
+        values.put("pool.size", "16");
+        values.put("pool.name", "other");
+        injector.setConfig(ConfigSnapshot.of(values));
+        Assert.assertNull(injector.get(TestIPoolConfig.class).enabled);
+        Assert.assertEquals(16, injector.get(TestIPoolConfig.class).size);
+        Assert.assertNull(injector.get(Long.class, Names.named("pool.timeout")));
+
+        // Not convertible: the constructor can't be used
+        values.put("pool.size", "many");
+        injector.setConfig(ConfigSnapshot.of(values));
+        Assert.assertNull(injector.get(TestIPoolConfig.class));
+    }
+
+    @Test
+    public void testConfigKeepsUserMappings() {
+        Injector injector = new Injector("io.github");
+        injector.setConfig(ConfigSnapshot.of(Collections.singletonMap("port", "80")));
+        injector.addMapping(Integer.class, Names.named("port"), new InjectionUnit(8080));
+        Assert.assertEquals("80", injector.get(String.class, Names.named("port")));
+
+        // Only the mappings installed by the previous configuration are removed
+        injector.setConfig(ConfigSnapshot.of(Collections.singletonMap("host", "localhost")));
+        Assert.assertEquals(Integer.valueOf(8080), injector.get(Integer.class, Names.named("port")));
+        Assert.assertNull(injector.get(String.class, Names.named("port")));
+        Assert.assertEquals("localhost", injector.get(String.class, Names.named("host")));
+    }
+
+    @Test
+    public void testConfigSnapshotConversions() {
+        Map<String, String> values = new HashMap<>();
+        values.put("byte", "127");
+        values.put("short", "300");
+        values.put("ratio", "0.5");
+        values.put("letter", "x");
+        values.put("flag", "FALSE");
+        ConfigSnapshot config = ConfigSnapshot.of(values);
+
+        Assert.assertEquals(5, config.size());
+        Assert.assertEquals(Byte.valueOf((byte) 127), config.get("byte", byte.class));
+        Assert.assertNull(config.get("short", byte.class));
+        Assert.assertEquals(Short.valueOf((short) 300), config.get("short", Short.class));
+        Assert.assertEquals(Double.valueOf(300), config.get("short", double.class));
+        Assert.assertEquals(Float.valueOf(0.5f), config.get("ratio", float.class));
+        Assert.assertNull(config.get("ratio", int.class));
+        Assert.assertEquals(Character.valueOf('x'), config.get("letter", char.class));
+        Assert.assertEquals(Boolean.FALSE, config.get("flag", boolean.class));
+        Assert.assertNull(config.get("flag", Object.class));
+        Assert.assertNull(config.get("missing", String.class));
+    }
+
     @Test
     public void testMethodCloneEquals() {
         Injector injector = new Injector("io.github");
@@ -322,4 +866,279 @@ class TestIInjections {
     private void setPrivateProp(TestISingleton privateProp) {
         this.privateProp = privateProp;
     }
-}
\ No newline at end of file
+}
+
+class TestIClosePool implements AutoCloseable {
+    @Override
+    public void close() {
+        TestICloseClient.closed.add("pool");
+    }
+}
+
+class TestICloseClient implements AutoCloseable {
+    static final List<String> closed = new CopyOnWriteArrayList<>();
+
+    public TestICloseClient(TestIClosePool pool) {
+    }
+
+    @Override
+    public void close() {
+        closed.add("client");
+    }
+}
+
+interface TestIPlugin {
+}
+
+class TestIPluginA implements TestIPlugin {
+    public TestIPluginA() {
+    }
+}
+
+class TestIPluginB implements TestIPlugin {
+    public TestIPluginB() {
+    }
+}
+
+class TestIPluginHost {
+    final List<TestIPlugin> list;
+    @Inject
+    Set<TestIPlugin> set;
+    TestIPlugin[] array;
+
+    public TestIPluginHost(List<TestIPlugin> list) {
+        this.list = list;
+    }
+
+    @Inject
+    public void setArray(TestIPlugin[] array) {
+        this.array = array;
+    }
+}
+
+interface TestIAutoService {
+}
+
+@Singleton
+class TestIAutoServiceImpl implements TestIAutoService {
+    public TestIAutoServiceImpl() {
+    }
+}
+
+class TestIGraphLeaf {
+    static int count = 0;
+
+    public TestIGraphLeaf() {
+        count++;
+    }
+}
+
+class TestIGraphService {
+    public TestIGraphService(TestIGraphLeaf leaf) {
+    }
+}
+
+class TestIGraphRoot {
+    public TestIGraphRoot(TestIGraphLeaf first, TestIGraphLeaf second, TestIGraphService service) {
+    }
+}
+
+class TestIGraphCycleA {
+    public TestIGraphCycleA(TestIGraphCycleB dependency) {
+    }
+}
+
+class TestIGraphCycleB {
+    public TestIGraphCycleB(TestIGraphCycleA dependency) {
+    }
+}
+
+class TestIHot {
+    final TestIPlugin plugin;
+    final boolean planned;
+    @Inject
+    public TestISingleton singleton;
+    TestIGraphLeaf leaf;
+    boolean initialized = false;
+
+    public TestIHot(TestIPlugin plugin) {
+        this.plugin = plugin;
+        boolean inPlan = false;
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            inPlan |= ConstructionPlan.class.getName().equals(element.getClassName());
+        }
+        planned = inPlan;
+    }
+
+    @Inject
+    public void setLeaf(TestIGraphLeaf leaf) {
+        this.leaf = leaf;
+    }
+
+    @PostConstruct
+    public void init() {
+        initialized = true;
+    }
+}
+
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@interface TestIReplica {
+}
+
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+@interface TestIRegion {
+    String value() default "eu";
+}
+
+class TestIDataSource {
+    final String name;
+
+    public TestIDataSource() {
+        this("default");
+    }
+
+    public TestIDataSource(String name) {
+        this.name = name;
+    }
+}
+
+class TestIRepository {
+    final TestIDataSource primary;
+    @Inject
+    @TestIReplica
+    public TestIDataSource replica;
+    TestIDataSource backup;
+
+    public TestIRepository(@Named("primary") TestIDataSource primary) {
+        this.primary = primary;
+    }
+
+    @Inject
+    public void setBackup(@Named("backup") TestIDataSource backup) {
+        this.backup = backup;
+    }
+}
+
+class TestIPoolConfig {
+    final int size;
+    final String name;
+    @Inject
+    @Named("pool.timeout")
+    public long timeout;
+    Boolean enabled;
+
+    public TestIPoolConfig(@Named("pool.size") int size, @Named("pool.name") String name) {
+        this.size = size;
+        this.name = name;
+    }
+
+    @Inject
+    public void setEnabled(@Named("pool.enabled") Boolean enabled) {
+        this.enabled = enabled;
+    }
+}
+
+class TestIDispatcher {
+    int voidCalls = 0;
+
+    @Inject
+    public TestISingleton handle(TestISingleton singleton) {
+        return singleton;
+    }
+
+    @Inject
+    public void handleVoid(TestISingleton singleton) {
+        voidCalls++;
+    }
+
+    @Inject
+    public TestIPlugin handlePlugin(TestIPlugin plugin) {
+        return plugin;
+    }
+
+    @Inject
+    public void fail() {
+        throw new IllegalStateException();
+    }
+}
+
+class TestISlow {
+    static int count = 0;
+
+    public TestISlow() throws InterruptedException {
+        Thread.sleep(50);
+        count++;
+    }
+}
+
+class TestISlowHolder {
+    public TestISlowHolder(TestISlow slow) {
+    }
+}
+
+class TestILifecycleParent {
+    static final List<String> events = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void parentInit() {
+        events.add("parent-init");
+    }
+
+    @PreDestroy
+    void parentDestroy() {
+        events.add("parent-destroy");
+    }
+}
+
+class TestILifecycle extends TestILifecycleParent {
+    @Inject
+    public TestISingleton injected;
+
+    public TestILifecycle() {
+    }
+
+    @PostConstruct
+    private void init() {
+        events.add("init:" + (injected != null));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        events.add("destroy");
+    }
+}
+
+class TestILifecycleOverride extends TestILifecycleParent {
+    public TestILifecycleOverride() {
+    }
+
+    @PostConstruct
+    @Override
+    void parentInit() {
+        events.add("override-init");
+    }
+
+    @Override
+    void parentDestroy() {
+        events.add("override-destroy");
+    }
+}
+
+class TestISlowDestroy {
+    final CountDownLatch finished = new CountDownLatch(1);
+
+    public TestISlowDestroy() {
+    }
+
+    @PreDestroy
+    public void destroy() {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        // Not interruptible, like a blocking close
+        while (System.nanoTime() < end) {
+            Thread.yield();
+        }
+        finished.countDown();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.macfja.injector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PersistentMapTest {
+    @Test
+    public void testWithAndWithout() {
+        PersistentMap<Integer, String> empty = PersistentMap.empty();
+        Map<Integer, String> expected = new HashMap<>();
+        PersistentMap<Integer, String> map = empty;
+        for (int index = 0; index < 2000; index++) {
+            map = map.with(index, "v" + index);
+            expected.put(index, "v" + index);
+        }
+        PersistentMap<Integer, String> full = map;
+        for (int index = 0; index < 2000; index += 3) {
+            map = map.without(index);
+            expected.remove(index);
+        }
+
+        Assert.assertEquals(expected, map.toMap());
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertNull(map.get(0));
+        Assert.assertEquals("v1", map.get(1));
+        // Previous versions are not modified
+        Assert.assertEquals(2000, full.size());
+        Assert.assertEquals("v0", full.get(0));
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertSame(map, map.without(-1));
+    }
+
+    @Test
+    public void testSameHash() {
+        PersistentMap<TestPMKey, String> map = PersistentMap.empty();
+        map = map.with(new TestPMKey("a"), "1").with(new TestPMKey("b"), "2").with(new TestPMKey("c"), "3");
+        map = map.with(new TestPMKey("b"), "4");
+
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("4", map.get(new TestPMKey("b")));
+        map = map.without(new TestPMKey("a"));
+        Assert.assertNull(map.get(new TestPMKey("a")));
+        Assert.assertEquals("3", map.get(new TestPMKey("c")));
+        Assert.assertEquals(PersistentMap.<TestPMKey, String>empty().with(new TestPMKey("c"), "3")
+                .with(new TestPMKey("b"), "4"), map);
+    }
+}
+
+class TestPMKey {
+    private final String name;
+
+    TestPMKey(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TestPMKey && ((TestPMKey) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 42;
+    }
+}
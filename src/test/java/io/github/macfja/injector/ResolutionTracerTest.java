@@ -0,0 +1,96 @@
+package io.github.macfja.injector;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResolutionTracerTest {
+    @Test
+    public void testTraceTree() {
+        Injector injector = new Injector("io.github");
+        ResolutionTracer tracer = new ResolutionTracer();
+        injector.setTracer(tracer);
+
+        Assert.assertNotNull(injector.get(TestRTRoot.class));
+
+        List<ResolutionTrace> roots = tracer.getRoots();
+        Assert.assertEquals(1, roots.size());
+        ResolutionTrace root = roots.get(0);
+        Assert.assertEquals(TestRTRoot.class, root.getType());
+        Assert.assertNotNull(root.getConstructor());
+        Assert.assertEquals(2, root.getChildren().size());
+        Assert.assertEquals(TestRTLeaf.class, root.getChildren().get(0).getType());
+        Assert.assertSame(root, root.getChildren().get(0).getParent());
+
+        Assert.assertEquals(3, tracer.getSlowest(10).size());
+        Assert.assertEquals(1, tracer.getSlowest(1).size());
+    }
+
+    @Test
+    public void testCollapsedStacks() {
+        Injector injector = new Injector("io.github");
+        ResolutionTracer tracer = new ResolutionTracer();
+        injector.setTracer(tracer);
+
+        injector.get(TestRTRoot.class);
+        injector.get(TestRTRoot.class);
+
+        String[] lines = tracer.toCollapsedStacks().split("\n");
+        Assert.assertEquals(2, lines.length);
+        String root = TestRTRoot.class.getName();
+        String leaf = TestRTLeaf.class.getName();
+        Assert.assertTrue(lines[0].matches(java.util.regex.Pattern.quote(root) + " \\d+"));
+        Assert.assertTrue(lines[1].matches(java.util.regex.Pattern.quote(root + ";" + leaf) + " \\d+"));
+
+        tracer.clear();
+        Assert.assertEquals("", tracer.toCollapsedStacks());
+    }
+
+    @Test
+    public void testCapacity() {
+        Injector injector = new Injector("io.github");
+        ResolutionTracer tracer = new ResolutionTracer(2);
+        injector.setTracer(tracer);
+
+        for (int index = 0; index < 5; index++) {
+            injector.get(TestRTRoot.class);
+        }
+        Assert.assertEquals(2, tracer.getRoots().size());
+
+        final List<ResolutionTrace> forwarded = new ArrayList<>();
+        ResolutionTracer forwarding = new ResolutionTracer(0) {
+            @Override
+            protected void onResolved(ResolutionTrace root) {
+                forwarded.add(root);
+            }
+        };
+        injector.setTracer(forwarding);
+        injector.get(TestRTRoot.class);
+        Assert.assertEquals(0, forwarding.getRoots().size());
+        Assert.assertEquals(1, forwarded.size());
+    }
+
+    @Test
+    public void testDisabled() {
+        Injector injector = new Injector("io.github");
+        ResolutionTracer tracer = new ResolutionTracer();
+        injector.setTracer(tracer);
+        injector.setTracer(null);
+
+        injector.get(TestRTRoot.class);
+        Assert.assertNull(injector.getTracer());
+        Assert.assertEquals(0, tracer.getRoots().size());
+    }
+}
+
+class TestRTLeaf {
+    public TestRTLeaf() {
+    }
+}
+
+class TestRTRoot {
+    public TestRTRoot(TestRTLeaf first, TestRTLeaf second) {
+    }
+}